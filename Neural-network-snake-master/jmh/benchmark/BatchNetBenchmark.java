@@ -0,0 +1,69 @@
+package benchmark;
+
+import gameEngine.Snake;
+
+import java.util.concurrent.TimeUnit;
+
+import neuralNetwork.BatchNet;
+import neuralNetwork.NeuralNet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class BatchNetBenchmark {
+	/**
+	 * 64 networks one by one against one BatchNet pass, with 64 genomes and
+	 * with one genome on 64 inputs
+	 */
+	NeuralNet nets[] = new NeuralNet[64];
+	BatchNet batch = new BatchNet(Snake.stageSizes, 64);
+	byte coeffs[][] = new byte[64][];
+	double inputs[] = new double[64 * Snake.FIRSTSTAGESIZE];
+	byte sharedCoeffs[];
+	double sharedInputs[] = new double[64 * Snake.FIRSTSTAGESIZE];
+	double input[];
+
+	@Setup
+	public void setup() {
+		input = Fixtures.randomInput(2);
+		for (int k = 0; k < 64; k++) {
+			nets[k] = Fixtures.randomNet(10 + k);
+			coeffs[k] = nets[k].getCoeffs();
+			System.arraycopy(input, 0, inputs, k * input.length, input.length);
+			double other[] = Fixtures.randomInput(20 + k);
+			System.arraycopy(other, 0, sharedInputs, k * other.length, other.length);
+		}
+		sharedCoeffs = Fixtures.randomNet(1).getCoeffs();
+	}
+
+	@Benchmark
+	public void neuralNet64Nets(Blackhole bh) {
+		for (int k = 0; k < nets.length; k++)
+			bh.consume(nets[k].calc(input));
+	}
+
+	@Benchmark
+	public double[] batchNet64Nets() {
+		return batch.calc(coeffs, inputs, 64);
+	}
+
+	@Benchmark
+	public double[] batchNet64InputsSharedWeights() {
+		return batch.calc(sharedCoeffs, sharedInputs, 64);
+	}
+}
@@ -0,0 +1,125 @@
+package benchmark;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import neuralNetwork.Int8Kernel;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+public class Benchmarks {
+	/**
+	 * Runs the JMH benchmarks of the simulation hot paths, a thin wrapper
+	 * around the JMH Runner for comparing runs.
+	 *
+	 * Usage: mvn -Pjmh test -Dbenchmarks.args="[-quick] [-save file] [-compare file] [-threshold percent] [-p name=v1,v2] [regex ...]"
+	 * (JMH and the generated benchmark classes are only on the test class
+	 * path, so it is not started with java directly)
+	 * The regexes select benchmarks like the JMH command line, e.g.
+	 * "NeuralNetBenchmark.calc". -quick runs one fork with short iterations.
+	 * -save writes the JMH JSON result, -compare reads such a file and
+	 * reports the change of every score; when something got slower by more
+	 * than the threshold (default 10%) the exit code is 1.
+	 * Every benchmark and parameter value runs in forked JVMs of its own,
+	 * all inputs come from fixed seeds (Fixtures).
+	 */
+	public static void main(String[] args) throws IOException, RunnerException {
+		ChainedOptionsBuilder options = new OptionsBuilder();
+		String saveFile = null;
+		String compareFile = null;
+		double threshold = 10;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-quick")) {
+				options.forks(1).warmupIterations(2).warmupTime(TimeValue.milliseconds(500)).measurementIterations(3)
+						.measurementTime(TimeValue.milliseconds(500));
+			} else if (args[i].equals("-save"))
+				saveFile = args[++i];
+			else if (args[i].equals("-compare"))
+				compareFile = args[++i];
+			else if (args[i].equals("-threshold"))
+				threshold = Double.parseDouble(args[++i]);
+			else if (args[i].equals("-p")) {
+				String param[] = args[++i].split("=", 2);
+				options.param(param[0], param[1].split(","));
+			} else
+				options.include(args[i]);
+		}
+		if (saveFile != null)
+			options.resultFormat(ResultFormatType.JSON).result(saveFile);
+		HashMap<String, Double> baseline = compareFile != null ? load(compareFile) : null;
+		System.out.println("Int8Kernel: " + (Int8Kernel.get() != null ? Int8Kernel.get().name() : "not available, int8 benchmarks use the double loop"));
+
+		Collection<RunResult> results = new Runner(options.build()).run();
+		if (baseline == null)
+			return;
+		boolean regression = false;
+		System.out.println();
+		for (RunResult r : results) {
+			String name = key(r.getParams().getBenchmark(), params(r));
+			double score = r.getPrimaryResult().getScore();
+			String line = String.format("%-70s %12.1f %s", name, score, r.getPrimaryResult().getScoreUnit());
+			if (baseline.containsKey(name)) {
+				double change = (score / baseline.get(name) - 1) * 100;
+				line += String.format("   %+.1f%%", change);
+				if (change > threshold) {
+					line += " REGRESSION";
+					regression = true;
+				}
+			}
+			System.out.println(line);
+		}
+		if (regression)
+			System.exit(1);
+	}
+
+	private static Map<String, String> params(RunResult r) {
+		Map<String, String> params = new TreeMap<String, String>();
+		for (String k : r.getParams().getParamsKeys())
+			params.put(k, r.getParams().getParam(k));
+		return params;
+	}
+
+	/**
+	 * @return benchmark name with its parameters, the same for a result and its JSON
+	 */
+	private static String key(String benchmark, Map<String, String> params) {
+		return params.isEmpty() ? benchmark : benchmark + " " + params;
+	}
+
+	/**
+	 * Reads the scores of a JMH JSON result file
+	 */
+	private static HashMap<String, Double> load(String file) throws IOException {
+		HashMap<String, Double> map = new HashMap<String, Double>();
+		Reader in = new FileReader(file);
+		try {
+			for (JsonElement e : JsonParser.parseReader(in).getAsJsonArray()) {
+				JsonObject o = e.getAsJsonObject();
+				Map<String, String> params = new TreeMap<String, String>();
+				if (o.has("params")) {
+					for (Map.Entry<String, JsonElement> p : o.getAsJsonObject("params").entrySet())
+						params.put(p.getKey(), p.getValue().getAsString());
+				}
+				map.put(key(o.get("benchmark").getAsString(), params), o.getAsJsonObject("primaryMetric").get("score").getAsDouble());
+			}
+		} finally {
+			in.close();
+		}
+		return map;
+	}
+}
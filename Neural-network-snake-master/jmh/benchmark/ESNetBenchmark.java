@@ -0,0 +1,49 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import neuralNetwork.ESNet;
+import neuralNetwork.Inference;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ESNetBenchmark {
+	/**
+	 * Inference of the linear ES snake network in each mode, one JVM per
+	 * mode like NeuralNetBenchmark
+	 */
+	@Param({ "exact", "quantized", "collapsed", "int8" })
+	public String mode;
+
+	ESNet net;
+	double input[];
+
+	@Setup
+	public void setup() {
+		Inference inference = Inference.EXACT.withQuantized(mode.equals("quantized")).withCollapsed(mode.equals("collapsed"))
+				.withInt8Kernel(mode.equals("int8"));
+		net = Fixtures.randomESNet(1, inference);
+		input = Fixtures.randomInput(2);
+	}
+
+	@Benchmark
+	public double[] calc() {
+		return net.calc(input);
+	}
+}
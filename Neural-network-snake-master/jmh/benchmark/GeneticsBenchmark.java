@@ -0,0 +1,63 @@
+package benchmark;
+
+import gameEngine.ESnake;
+import gameEngine.Snake;
+import genetics.DNA;
+import genetics.EDNA;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import neuralNetwork.ESNet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class GeneticsBenchmark {
+	/**
+	 * Breeding one child for the GA (DNA) and the ES (EDNA)
+	 */
+	DNA a, b;
+	EDNA ea, eb;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(3);
+		a = new DNA(false, Snake.dnaLength());
+		b = new DNA(false, Snake.dnaLength());
+		random.nextBytes(a.data);
+		random.nextBytes(b.data);
+		random = new Random(4);
+		int length = ESNet.calcNumberOfCoeffs(ESnake.stageSizes) + 1;
+		ea = new EDNA(false, length);
+		eb = new EDNA(false, length);
+		random.nextBytes(ea.op);
+		random.nextBytes(eb.op);
+		ea.sigma = 20;
+		eb.sigma = 30;
+	}
+
+	@Benchmark
+	public DNA dnaCrossoverBytewise() {
+		return a.crossoverBytewise(b, .02);
+	}
+
+	@Benchmark
+	public EDNA ednaCrossoverWithMutation() {
+		return ea.crossoverWithMutation(eb);
+	}
+}
@@ -0,0 +1,62 @@
+package benchmark;
+
+import gameEngine.Snake;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import neuralNetwork.NeuralNet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class NetVariantsBenchmark {
+	/**
+	 * NeuralNet variants that are not an Inference mode: symmetric weights and
+	 * incremental inference with two inputs changing per call
+	 */
+	NeuralNet symmetricNet;
+	NeuralNet net;
+	double input[];
+	int tick = 0;
+
+	@Setup
+	public void setup() {
+		byte coeffs[] = new byte[NeuralNet.calcNumberOfCoeffs(Snake.stageSizes, true)];
+		new Random(1).nextBytes(coeffs);
+		symmetricNet = new NeuralNet(Snake.stageSizes);
+		symmetricNet.loadCoeffsSymmetrical(coeffs);
+		net = Fixtures.randomNet(1);
+		input = Fixtures.randomInput(2);
+	}
+
+	@Benchmark
+	public double[] calcSymmetric() {
+		return symmetricNet.calc(input);
+	}
+
+	/**
+	 * two visual cells see something a little closer or farther each time
+	 */
+	@Benchmark
+	public double[] calcIncremental2Changes() {
+		double step = (tick++ & 1) == 0 ? .001 : -.001;
+		input[0] += step;
+		input[Snake.FIRSTSTAGESIZE - 1] -= step;
+		return net.calcIncremental(input, 0);
+	}
+}
@@ -0,0 +1,82 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import neuralNetwork.Inference;
+import neuralNetwork.NeuralNet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class NeuralNetBenchmark {
+	/**
+	 * Inference of the GA snake network {48,16,16,2} in each mode. The mode
+	 * is fixed when the network is built; JMH runs every parameter value in
+	 * its own JVM, and the JIT only ever sees one mode.
+	 * With mode int8 and no Int8Kernel (see Benchmarks) the stages keep the
+	 * double loop.
+	 */
+	@Param({ "exact", "fastSigmoid", "quantized", "int8" })
+	public String mode;
+
+	NeuralNet net;
+	double input[];
+	int index[];
+	double value[];
+	int count;
+
+	@Setup
+	public void setup() {
+		Inference inference = Inference.EXACT.withFastSigmoid(mode.equals("fastSigmoid")).withQuantized(mode.equals("quantized"))
+				.withInt8Kernel(mode.equals("int8"));
+		net = Fixtures.randomNet(1, inference);
+		input = Fixtures.randomInput(2);
+		index = new int[input.length];
+		value = new double[input.length];
+		count = 0;
+		for (int i = 0; i < input.length; i++) {
+			if (input[i] != 0) {
+				index[count] = i;
+				value[count++] = input[i];
+			}
+		}
+		net.calc(input);
+	}
+
+	@Benchmark
+	public double[] calc() {
+		return net.calc(input);
+	}
+
+	/**
+	 * as Snake.brain() calls it, only the nonzero inputs
+	 */
+	@Benchmark
+	public double[] calcSparse() {
+		return net.calcSparse(index, value, count);
+	}
+
+	/**
+	 * the largest stage alone, 48 inputs
+	 */
+	@Benchmark
+	public double[] stageCalc() {
+		net.stages[1].calc();
+		return net.stages[1].output;
+	}
+}
@@ -0,0 +1,48 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import neuralNetwork.Inference;
+import neuralNetwork.NeuralNet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class PrunedNetBenchmark {
+	/**
+	 * NeuralNet.calc() with the weights below pruneThreshold dropped (0 =
+	 * dense), the speed column to Pruning's fitness table. Other
+	 * thresholds with -p pruneThreshold=...
+	 */
+	@Param({ "0", "32", "64" })
+	public int pruneThreshold;
+
+	NeuralNet net;
+	double input[];
+
+	@Setup
+	public void setup() {
+		net = Fixtures.randomNet(1, Inference.EXACT.withPruneThreshold(pruneThreshold));
+		input = Fixtures.randomInput(2);
+	}
+
+	@Benchmark
+	public double[] calc() {
+		return net.calc(input);
+	}
+}
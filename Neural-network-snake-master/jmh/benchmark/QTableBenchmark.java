@@ -0,0 +1,67 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import qLearning.QTable;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class QTableBenchmark {
+	/**
+	 * QTable.get() followed by set() on pseudo random entries, by one
+	 * thread alone and by four threads on the same table
+	 */
+	@State(Scope.Benchmark)
+	public static class Table {
+		QTable table;
+
+		@Setup
+		public void setup() {
+			table = new QTable();
+		}
+	}
+
+	int state = 1;
+
+	@Setup
+	public void setup() {
+		state = (int) Thread.currentThread().getId(); // other entries per thread
+	}
+
+	private double getSet(QTable table) {
+		state = (state * 1103515245 + 12345) & 0x7fffffff;
+		int s = state % table.numStates;
+		int a = state % table.numActions;
+		double v = table.get(s, a);
+		table.set(s, a, v + 1);
+		return v;
+	}
+
+	@Benchmark
+	@Threads(1)
+	public double getSet1Thread(Table t) {
+		return getSet(t.table);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public double getSet4Threads(Table t) {
+		return getSet(t.table);
+	}
+}
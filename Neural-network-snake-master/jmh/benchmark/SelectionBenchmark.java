@@ -0,0 +1,56 @@
+package benchmark;
+
+import gameEngine.GATrainer;
+import gameEngine.Snake;
+import gameEngine.World;
+import genetics.FitnessSelector;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class SelectionBenchmark {
+	/**
+	 * Choosing both parents of one new snake in the GATrainer (what the
+	 * mating pool of GameLoop used to do), for its 8 snakes and for 1000
+	 */
+	@Param({ "8", "1000" })
+	public int snakes;
+
+	GATrainer trainer;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(5);
+		World world = Fixtures.benchmarkWorld();
+		trainer = new GATrainer();
+		for (int i = 0; i < snakes; i++) {
+			Snake s = new Snake(null, world);
+			s.score = random.nextDouble() * 500;
+			trainer.snakes.add(s);
+		}
+	}
+
+	@Benchmark
+	public double parents() {
+		FitnessSelector selection = trainer.makeSelection();
+		return trainer.getParent(selection.pick()).score + trainer.getParent(selection.pick()).score;
+	}
+}
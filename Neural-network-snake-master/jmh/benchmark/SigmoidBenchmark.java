@@ -0,0 +1,40 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import neuralNetwork.Stage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class SigmoidBenchmark {
+	/**
+	 * Exact sigmoid against the table, on arguments sweeping -30..30
+	 */
+	double x = 0;
+
+	@Benchmark
+	public double sigmoid() {
+		x = x > 30 ? -30 : x + .37;
+		return Stage.sigmoid(x);
+	}
+
+	@Benchmark
+	public double sigmoidApprox() {
+		x = x > 30 ? -30 : x + .37;
+		return Stage.sigmoidApprox(x);
+	}
+}
@@ -0,0 +1,76 @@
+package benchmark;
+
+import gameEngine.SegmentStore;
+import gameEngine.Snake;
+import gameEngine.World;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class SnakeBenchmark {
+	/**
+	 * Sensing and thinking, and one whole tick, of a snake laid out in rows
+	 * (Fixtures.benchmarkSnake()). For update() the snake is restored before
+	 * each call, so every call measures the same tick; the restore is a few
+	 * array copies and part of the measured time.
+	 */
+	@Param({ "1", "16", "64", "256" })
+	public int length;
+
+	World world;
+	Snake snake;
+	double x[], y[], rad[];
+	double angle;
+
+	@Setup
+	public void setup() {
+		world = Fixtures.benchmarkWorld();
+		snake = Fixtures.benchmarkSnake(world, length);
+		SegmentStore s = snake.snakeSegments;
+		x = s.x.clone();
+		y = s.y.clone();
+		rad = s.rad.clone();
+		angle = snake.angle;
+	}
+
+	@Benchmark
+	public double brain() {
+		return snake.brain(world);
+	}
+
+	@Benchmark
+	public double update() {
+		SegmentStore s = snake.snakeSegments;
+		System.arraycopy(x, 0, s.x, 0, length);
+		System.arraycopy(y, 0, s.y, 0, length);
+		System.arraycopy(rad, 0, s.rad, 0, length);
+		for (int i = 0; i < length; i++) {
+			s.vx[i] = 0;
+			s.vy[i] = 0;
+		}
+		s.size = length;
+		snake.angle = angle;
+		snake.isDead = false;
+		snake.health = Snake.healthbonus;
+		snake.score = 0;
+		snake.update(world);
+		return s.x[0];
+	}
+}
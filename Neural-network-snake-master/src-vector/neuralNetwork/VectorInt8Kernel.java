@@ -0,0 +1,39 @@
+package neuralNetwork;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+public class VectorInt8Kernel extends Int8Kernel {
+	/**
+	 * Int8Kernel on the Vector API. Kept apart from src because it needs the
+	 * incubator module, build and run it with
+	 *   mvn -Pvector test
+	 *   java --add-modules jdk.incubator.vector -cp target/classes ...
+	 * Int8Kernel.get() picks it up automatically when it can be loaded.
+	 */
+	private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+	// as many bytes as there are float lanes:
+	private static final VectorSpecies<Byte> BYTES = VectorSpecies.of(byte.class, VectorShape.forBitSize(FLOATS.length() * 8));
+
+	public String name() {
+		return "vector " + FLOATS.length() + " lanes";
+	}
+
+	public float dot(byte w[], int row, float x[], int n) {
+		int lanes = FLOATS.length();
+		FloatVector acc = FloatVector.zero(FLOATS);
+		int j = 0;
+		for (; j + lanes <= n; j += lanes) {
+			FloatVector wv = (FloatVector) ByteVector.fromArray(BYTES, w, row + j).castShape(FLOATS, 0);
+			acc = wv.fma(FloatVector.fromArray(FLOATS, x, j), acc);
+		}
+		float sum = acc.reduceLanes(VectorOperators.ADD);
+		for (; j < n; j++) {
+			sum += w[row + j] * x[j];
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,106 @@
+package benchmark;
+
+import gameEngine.ESnake;
+import gameEngine.Snake;
+
+import java.util.Random;
+
+import neuralNetwork.ESNet;
+import neuralNetwork.Inference;
+import neuralNetwork.Int8Kernel;
+import neuralNetwork.NeuralNet;
+import neuralNetwork.Stage;
+
+public class Accuracy {
+	/**
+	 * Compares the approximate inference modes (fast sigmoid, int8 kernel,
+	 * fixed point, collapsed ESNet) with the double path on random networks and snake-like
+	 * inputs from fixed seeds.
+	 *
+	 * Usage: Accuracy [networks] [inputs per network]
+	 * For each mode it prints the largest and mean output error, relative to
+	 * signalMultiplier or to the largest output if that is larger (the
+	 * linear ESNet has outputs far above 1), the largest error of the steering
+	 * (angle increment relative to the maximum angular speed, as in
+	 * Snake.steer()) and how often the snake would turn the other way.
+	 */
+	public static void main(String[] args) {
+		int networks = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		int inputs = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+		System.out.println(String.format("%-24s %12s %12s %12s %12s", "mode", "max error", "mean error", "max steering", "other way"));
+		compare("NeuralNet fast sigmoid", false, networks, inputs, Inference.EXACT.withFastSigmoid(true));
+		if (Int8Kernel.get() != null)
+			compare("NeuralNet int8 kernel", false, networks, inputs, Inference.EXACT.withInt8Kernel(true));
+		compare("NeuralNet quantized", false, networks, inputs, Inference.EXACT.withQuantized(true));
+		if (Int8Kernel.get() != null)
+			compare("ESNet int8 kernel", true, networks, inputs, Inference.EXACT.withInt8Kernel(true));
+		compare("ESNet quantized", true, networks, inputs, Inference.EXACT.withQuantized(true));
+		compare("ESNet collapsed", true, networks, inputs, Inference.EXACT.withCollapsed(true));
+	}
+
+	/**
+	 * Runs each network twice with the same weights, once exact and once in
+	 * the given mode
+	 */
+	private static void compare(String name, boolean es, int networks, int inputs, Inference mode) {
+		double maxError = 0, sumError = 0, maxSteering = 0;
+		long count = 0, otherWay = 0;
+		for (int n = 0; n < networks; n++) {
+			Random random = new Random(n);
+			byte coeffs[] = new byte[es ? ESNet.calcNumberOfCoeffs(ESnake.stageSizes) : NeuralNet.calcNumberOfCoeffs(Snake.stageSizes, false)];
+			random.nextBytes(coeffs);
+			NeuralNet net = null, approxNet = null;
+			ESNet esNet = null, approxESNet = null;
+			if (es) {
+				esNet = new ESNet(ESnake.stageSizes);
+				esNet.loadCoeffs(coeffs);
+				approxESNet = new ESNet(ESnake.stageSizes, mode);
+				approxESNet.loadCoeffs(coeffs);
+			} else {
+				net = new NeuralNet(Snake.stageSizes);
+				net.loadCoeffs(coeffs);
+				approxNet = new NeuralNet(Snake.stageSizes, mode);
+				approxNet.loadCoeffs(coeffs);
+			}
+			for (int k = 0; k < inputs; k++) {
+				double input[] = randomInput(random.nextLong());
+				double exact[] = (es ? esNet.calc(input) : net.calc(input)).clone();
+				double approx[] = (es ? approxESNet.calc(input) : approxNet.calc(input)).clone();
+				double scale = Stage.signalMultiplier;
+				for (int i = 0; i < exact.length; i++)
+					scale = Math.max(scale, Math.abs(exact[i]));
+				for (int i = 0; i < exact.length; i++) {
+					double e = Math.abs(approx[i] - exact[i]) / scale;
+					maxError = Math.max(maxError, e);
+					sumError += e;
+					count++;
+				}
+				double s1 = steering(exact[0] - exact[1]);
+				double s2 = steering(approx[0] - approx[1]);
+				maxSteering = Math.max(maxSteering, Math.abs(s2 - s1));
+				if (s1 * s2 < 0)
+					otherWay++;
+			}
+		}
+		System.out.println(String.format("%-24s %12.3g %12.3g %12.3g %12d", name, maxError, sumError / count, maxSteering, otherWay));
+	}
+
+	/**
+	 * Input like the one of a snake: each visual cell sees one type
+	 */
+	private static double[] randomInput(long seed) {
+		Random random = new Random(seed);
+		int cells = Snake.FOVDIVISIONS * 2;
+		double input[] = new double[Snake.FIRSTSTAGESIZE];
+		for (int i = 0; i < cells; i++)
+			input[random.nextInt(3) * cells + i] = random.nextDouble() * Stage.signalMultiplier;
+		return input;
+	}
+
+	/**
+	 * angle increment of Snake.steer() relative to maximumAngularSpeed
+	 */
+	private static double steering(double delta) {
+		return Math.max(-1, Math.min(1, 10 / Stage.signalMultiplier * delta));
+	}
+}
@@ -0,0 +1,65 @@
+package benchmark;
+
+import gameEngine.ParallelEvaluator;
+import gameEngine.ParallelGATrainer;
+import gameEngine.Snake;
+import gameEngine.World;
+import genetics.DNA;
+
+import neuralNetwork.Inference;
+import neuralNetwork.NeuralNet;
+
+public class Pruning {
+	/**
+	 * Measures what pruning the network (Inference.pruneThreshold) costs in
+	 * fitness: trains a champion with the ParallelGATrainer, then lets it
+	 * live many times with the full network and with each threshold.
+	 *
+	 * Usage: Pruning [generations] [lives] [threshold ...]
+	 * Prints for each threshold the share of dropped synapses and the mean
+	 * fitness with its standard error. The time of one NeuralNet.calc() per
+	 * threshold is measured by the JMH benchmark PrunedNetBenchmark.
+	 * Nibbles are placed at random, so fitness varies from life to life.
+	 */
+	public static void main(String[] args) {
+		int generations = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+		int lives = args.length > 1 ? Integer.parseInt(args[1]) : 128;
+		int thresholds[] = new int[] { 0, 8, 16, 24, 32, 48, 64 };
+		if (args.length > 2) {
+			thresholds = new int[args.length - 2];
+			for (int i = 2; i < args.length; i++)
+				thresholds[i - 2] = Integer.parseInt(args[i]);
+		}
+		int threads = Runtime.getRuntime().availableProcessors();
+		World world = new World();
+		world.width = 1000;
+		world.height = 600;
+		ParallelGATrainer trainer = new ParallelGATrainer(64, threads, 1);
+		for (int g = 0; g < generations; g++)
+			trainer.tick(world);
+		trainer.evaluator.shutdown();
+		System.out.println("champion after " + generations + " generations, best fitness " + trainer.bestscore);
+
+		DNA champion[] = new DNA[lives];
+		for (int i = 0; i < lives; i++)
+			champion[i] = trainer.bestDna;
+		System.out.println(String.format("%-10s %10s %14s %10s", "threshold", "sparsity", "mean fitness", "error"));
+		for (int threshold : thresholds) {
+			Inference pruned = Inference.EXACT.withPruneThreshold(threshold);
+			// one snake per world, so every snake thinks with its own (pruned) NeuralNet:
+			ParallelEvaluator evaluator = new ParallelEvaluator(threads, 1, pruned);
+			double fitness[] = evaluator.evaluate(champion, world.width, world.height);
+			double sum = 0, sum2 = 0;
+			for (double f : fitness) {
+				sum += f;
+				sum2 += f * f;
+			}
+			double mean = sum / lives;
+			double error = Math.sqrt(Math.max(0, sum2 / lives - mean * mean) / lives);
+			evaluator.shutdown();
+			NeuralNet net = new NeuralNet(Snake.stageSizes, pruned);
+			net.loadCoeffs(trainer.bestDna.data);
+			System.out.println(String.format("%-10d %9.1f%% %14.1f %10.1f", threshold, net.getSparsity() * 100, mean, error));
+		}
+	}
+}
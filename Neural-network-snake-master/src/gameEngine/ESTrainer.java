@@ -0,0 +1,172 @@
+package gameEngine;
+
+import genetics.EDNA;
+import helpers.RandomStreams;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.SplittableRandom;
+
+import neuralNetwork.Inference;
+
+public class ESTrainer implements TrainingStrategy {
+	// constants:
+	public static final int numSnakes = 8;
+	public static final int numParents = 6;
+	public static final int defaultNibbles = 4;
+	public int numNibbles = defaultNibbles; // kept in the world, eaten ones are replaced
+	public final Inference inference; // how the snakes' networks calculate
+
+	// Genetics parameter initialization:
+	public double currentGeneration = 0;
+	public int intGeneration = 0;
+	public boolean newEra = true;
+
+	// snakes initialization:
+	public LinkedList<ESnake> snakes = new LinkedList<ESnake>();
+
+	// Best:
+	public EDNA bestDna = null;
+	public double bestscore = 0;
+
+	// Statistics:
+	public double currentMaxFitness = 0;
+	public double allTimeMaxFitnessNN = 0;
+
+	public ESTrainer() {
+		this(Inference.EXACT);
+	}
+
+	/**
+	 * C'tor
+	 *
+	 * @param inference	mode of the networks of all snakes
+	 */
+	public ESTrainer(Inference inference) {
+		this.inference = inference;
+	}
+
+	/**
+	 * Evolution strategy over EDNA driven linear net snakes.
+	 * Snakes are replaced one by one as they die (steady state).
+	 */
+	public void tick(World world) {
+		// initilize first generation:
+		if (snakes.isEmpty()) {
+			firstGeneration(numSnakes, world);
+			world.maxNibbles = Math.max(world.maxNibbles, numNibbles);
+			world.newNibble(numNibbles);
+		}
+		int deadCount = 0;
+		world.update();
+		for (ESnake s : snakes) {
+			if (!s.update(world)) {
+				deadCount++;
+			}
+			if (s.getFitness() > currentMaxFitness)
+				currentMaxFitness = s.getFitness();
+				if(currentMaxFitness > allTimeMaxFitnessNN) allTimeMaxFitnessNN = currentMaxFitness;
+			if (s.getFitness() > bestscore) {
+				bestscore = s.getFitness();
+				bestDna = s.dna;
+			}
+		}
+		// new snakes
+		for (int i = 0; i < deadCount; i++) {
+			newSnake(world);
+			currentGeneration += 1 / (double) numSnakes;
+			if(((int) currentGeneration) > intGeneration) {
+				intGeneration = (int) currentGeneration;
+				newEra = true;
+			}
+			if((((int) currentGeneration) % 50 == 0) && newEra){
+				newEra = false;
+				ArrayList<ESnake> snakesSorted = new ArrayList<>();
+				snakesSorted.addAll(snakes);
+				snakesSorted.sort(Comparator.comparingDouble(ESnake::getFitness));
+				System.out.println("Generation: " + Integer.toString(intGeneration) + " Sigma: " + snakesSorted.get(0).dna.sigma + " Max Fitness: " + Double.toString(currentMaxFitness));
+			}
+
+		}
+		Iterator<ESnake> it = snakes.iterator();
+		while (it.hasNext()) {
+			ESnake s = it.next();
+			if (s.deathFade <= 0) {
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * initializes snake array with n fresh snakes
+	 *
+	 * @param n
+	 *            amount of snakes
+	 * @param world
+	 *            reference to the world for spawn point
+	 */
+	public void firstGeneration(int n, World world) {
+		snakes.clear();
+		for (int i = 0; i < n; i++) {
+			snakes.add(new ESnake(null, world, inference));
+		}
+		world.reset();
+	}
+
+	/**
+	 * Creates the mating pool out of the snake-list
+	 *
+	 * @return Mating pool as list
+	 */
+	public ArrayList<ESnake> makeMatingpool() {
+		ArrayList<ESnake> matingpool = new ArrayList<ESnake>();
+
+		//sort snakes by fitness
+		ArrayList<ESnake> snakesSorted = new ArrayList<>();
+		snakesSorted.addAll(snakes);
+		snakesSorted.sort(Comparator.comparingDouble(ESnake::getFitness));
+
+		//add p best snakes
+		for(int i = snakesSorted.size()-1; i > snakesSorted.size() -1 - numParents; i--){
+			matingpool.add(snakesSorted.get(i));
+		}
+
+		return matingpool;
+	}
+
+	/**
+	 * Creates a new snake using the evolution strategy and adds it to the
+	 * snake-list
+	 *
+	 * @param world
+	 *            reference to the world for spawn point
+	 */
+	public void newSnake(World world) {
+		ArrayList<ESnake> matingpool = makeMatingpool();
+		SplittableRandom random = RandomStreams.get();
+		int idx1 = random.nextInt(matingpool.size());
+		int idx2 = random.nextInt(matingpool.size());
+		EDNA parentA = matingpool.get(idx1).dna;
+		EDNA parentB = matingpool.get(idx2).dna;
+		ESnake s = new ESnake(parentA.crossoverWithMutation(parentB), world, inference);
+		snakes.add(s);
+	}
+
+	public int getGeneration() {
+		return intGeneration;
+	}
+
+	public double getCurrentMaxFitness() {
+		return currentMaxFitness;
+	}
+
+	public double getBestScore() {
+		return bestscore;
+	}
+
+	public void resetCurrentMaxFitness() {
+		currentMaxFitness = 0;
+	}
+}
@@ -0,0 +1,278 @@
+package gameEngine;
+
+import genetics.DNA;
+import genetics.FitnessSelector;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Queue;
+
+import neuralNetwork.Inference;
+
+public class GATrainer implements TrainingStrategy {
+	// constants:
+	public static final int numSnakes = 8;
+	public static final int defaultNibbles = 6;
+	public int numNibbles = defaultNibbles; // kept in the world, eaten ones are replaced
+
+	// Genetics parameter initialization:
+	public double mutationrate = .02;
+	public double currentGeneration = 0;
+	public int intGeneration = 0;
+	public boolean newEra = true;
+	public boolean printProgress = true; // false: the owner reports, e.g. the IslandGATrainer
+	public final Inference inference; // how the snakes' networks calculate
+
+	// snakes initialization:
+	public LinkedList<Snake> snakes = new LinkedList<Snake>();
+	public LinkedList<Snake> backupSnakes = new LinkedList<Snake>(); // to
+																		// resume
+																		// from
+																		// single
+																		// mode
+	//player snakes
+	public Snake currentSnake = null;
+	public boolean manualControl = false;
+
+	//controller snake
+	public Snake ruleBased = null;
+	public boolean runRuleBased = false;
+
+	// parent selection, rebuilt for every new snake:
+	private ArrayList<Snake> parents = new ArrayList<Snake>();
+	private FitnessSelector selector = new FitnessSelector();
+
+	// faded out snakes, newSnake() reuses them with their network, segments and DNA buffer:
+	private ArrayList<Snake> recycled = new ArrayList<Snake>();
+
+	// island model: genomes sent by other populations, born instead of offspring (null = none)
+	public Queue<DNA> immigrants = null;
+
+	// Best:
+	public DNA bestDna = null;
+	public double bestscore = 0;
+
+	// Statistics:
+	public double currentMaxFitness = 0;
+	public double allTimeMaxFitnessNN = 0;
+	public double currentMaxFitnessRuleBased = 0;
+
+	// Mode control:
+	public boolean singleSnakeModeActive = false;
+
+	public GATrainer() {
+		this(Inference.EXACT);
+	}
+
+	/**
+	 * C'tor
+	 *
+	 * @param inference	mode of the networks of all snakes
+	 */
+	public GATrainer(Inference inference) {
+		this.inference = inference;
+	}
+
+	/**
+	 * Genetic algorithm over DNA driven neural net snakes.
+	 * Snakes are replaced one by one as they die (steady state).
+	 */
+	public void tick(World world) {
+		// initilize first generation:
+		if (snakes.isEmpty()) {
+			firstGeneration(numSnakes, world);
+			world.maxNibbles = Math.max(world.maxNibbles, numNibbles);
+			world.newNibble(numNibbles);
+		}
+		int deadCount = 0;
+		world.update();
+		for (Snake s : snakes) {
+			if (!s.update(world)) {
+				deadCount++;
+			}
+			if (s.getFitness() > currentMaxFitness && s!= ruleBased)
+				currentMaxFitness = s.getFitness();
+				if(currentMaxFitness > allTimeMaxFitnessNN) allTimeMaxFitnessNN = currentMaxFitness;
+			if (s.getFitness() > currentMaxFitnessRuleBased && s == ruleBased){
+				currentMaxFitnessRuleBased = s.getFitness();
+			}
+			if (s.getFitness() > bestscore) {
+				bestscore = s.getFitness();
+				bestDna = s.dna;
+			}
+		}
+		if (deadCount > 0 && singleSnakeModeActive) {
+			singleSnakeModeActive = false;
+			snakes.clear();
+			snakes.addAll(backupSnakes);
+
+		} else {
+			// new snakes
+			for (int i = 0; i < deadCount; i++) {
+				newSnake(world);
+				currentGeneration += 1 / (double) numSnakes;
+				if(((int) currentGeneration) > intGeneration) {
+					intGeneration = (int) currentGeneration;
+					newEra = true;
+				}
+				if((((int) currentGeneration) % 50 == 0) && newEra){
+					newEra = false;
+					ArrayList<Snake> snakesSorted = new ArrayList<>();
+					snakesSorted.addAll(snakes);
+					snakesSorted.sort(Comparator.comparingDouble(Snake::getFitness));
+					if (printProgress)
+						System.out.println("Generation: " + Integer.toString(intGeneration) + " Max Fitness: " + Double.toString(currentMaxFitness));
+				}
+			}
+		}
+		Iterator<Snake> it = snakes.iterator();
+		while (it.hasNext()) {
+			Snake s = it.next();
+			if (s.deathFade <= 0) {
+				it.remove();
+				recycle(s);
+			}
+		}
+	}
+
+	/**
+	 * Puts the population aside and lets the best snake so far play alone
+	 * until it dies
+	 *
+	 * @param world
+	 *            reference to the world for spawn point
+	 */
+	public void watchBest(World world) {
+		if (singleSnakeModeActive)
+			return;
+		singleSnakeModeActive = true;
+		backupSnakes.clear();
+		backupSnakes.addAll(snakes);
+		snakes.clear();
+		snakes.add(new Snake(bestDna, world, inference));
+	}
+
+	/**
+	 * initializes snake array with n fresh snakes
+	 *
+	 * @param n
+	 *            amount of snakes
+	 * @param world
+	 *            reference to the world for spawn point
+	 */
+	public void firstGeneration(int n, World world) {
+		snakes.clear();
+		for (int i = 0; i < n; i++) {
+			snakes.add(new Snake(null, world, inference));
+		}
+		world.reset();
+	}
+
+	/**
+	 * Prepares the parent selection out of the snake-list: each snake gets
+	 * picked proportional to its fitness, with the weights the mating pool
+	 * used to have (up to 100 entries for the fittest snake)
+	 *
+	 * @return selector, its indices are those of getParent()
+	 */
+	public FitnessSelector makeSelection() {
+		parents.clear();
+		selector.clear();
+		// get maximum fitness:
+		double maxscore = 0;
+		for (Snake s : snakes) {
+			if (s.getFitness() > maxscore && ruleBased != s && currentSnake != s) {
+				maxscore = s.getFitness();
+			}
+		}
+		// Add snakes according to fitness
+		for (Snake s : snakes) {
+			if(ruleBased == s || currentSnake == s)
+				continue;
+			parents.add(s);
+			selector.add((int) (s.getFitness() * 100 / maxscore));
+		}
+		return selector;
+	}
+
+	/**
+	 * @param index	index picked from the selector of makeSelection()
+	 * @return		the snake
+	 */
+	public Snake getParent(int index) {
+		return parents.get(index);
+	}
+
+	/**
+	 * Creates a new snake using the genetic algorithm and adds it to the
+	 * snake-list. A waiting immigrant is taken instead of breeding.
+	 * A recycled snake is reused if there is one, the child DNA is then
+	 * written into its old DNA.
+	 *
+	 * @param world
+	 *            reference to the world for spawn point
+	 */
+	public void newSnake(World world) {
+		mutationrate = 10 / currentMaxFitness;
+		Snake s = recycled.isEmpty() ? null : recycled.remove(recycled.size() - 1);
+		DNA dna = immigrants != null ? immigrants.poll() : null;
+		if (dna == null) {
+			FitnessSelector selection = makeSelection();
+			DNA parentA = getParent(selection.pick()).dna;
+			DNA parentB = getParent(selection.pick()).dna;
+			dna = parentA.crossoverBytewise(parentB, mutationrate, s != null ? s.dna : null);
+		}
+		if (s == null)
+			s = new Snake(dna, world, inference);
+		else
+			s.reset(dna, world);
+		snakes.add(s);
+		if(manualControl && (currentSnake == null || currentSnake.deathFade <= 0)) {
+			if(currentSnake != null) {
+				System.out.println(currentSnake.score);
+			}
+			s.manual = true;
+			currentSnake = s;
+		} else if(runRuleBased && (ruleBased == null || ruleBased.deathFade <= 0 )) {
+			if(ruleBased != null) {
+				System.out.println("t: "+Long.toString(world.clock / 1000)+"\tRule-based: "+currentMaxFitnessRuleBased+"\t\tBest NN: "+allTimeMaxFitnessNN);
+				currentMaxFitnessRuleBased = 0;
+			}
+			s.ruled = true;
+			ruleBased = s;
+		}
+	}
+
+	/**
+	 * Puts a snake that was removed from the snake-list into the pool. The
+	 * player and rule based snakes are left out, they are still referenced
+	 * until their replacement, and bestDna gets its own copy
+	 *
+	 * @param s	faded out snake
+	 */
+	private void recycle(Snake s) {
+		if (s == currentSnake || s == ruleBased)
+			return;
+		if (s.dna == bestDna)
+			bestDna = bestDna.copy();
+		recycled.add(s);
+	}
+
+	public int getGeneration() {
+		return intGeneration;
+	}
+
+	public double getCurrentMaxFitness() {
+		return currentMaxFitness;
+	}
+
+	public double getBestScore() {
+		return bestscore;
+	}
+
+	public void resetCurrentMaxFitness() {
+		currentMaxFitness = 0;
+	}
+}
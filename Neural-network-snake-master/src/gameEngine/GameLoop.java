@@ -1,100 +1,61 @@
 package gameEngine;
 
-import genetics.DNA;
+import helpers.FixedTimestepScheduler;
 import helpers.KeyboardListener;
 
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.Graphics;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Iterator;
 import java.util.LinkedList;
 
 import javax.swing.JComponent;
 
 public class GameLoop extends JComponent {
 	// main update frequency:
-	public static final long UPDATEPERIOD = 8;
+	public static final long UPDATEPERIOD = World.UPDATEPERIOD;
 	public double per = UPDATEPERIOD;
+	public FixedTimestepScheduler scheduler = new FixedTimestepScheduler(UPDATEPERIOD * 1000000L, 5);
 
 	// constants:
-	public static final int globalCircleRadius = 20;
-	public static final int numSnakes = 8;
-	public static final int numNibbles = 6;
+	public static final int globalCircleRadius = World.globalCircleRadius;
+	public static final int numSnakes = GATrainer.numSnakes;
+	public static final int numNibbles = GATrainer.defaultNibbles;
 
-	// Genetics parameter initialization:
-	public static double mutationrate = .02;
-	public double currentGeneration = 0;
-	public int intGeneration = 0;
-	public boolean newEra = true;
-
-	// world and snakes initialization:
+	// world and training:
 	public World world = new World();
-	public LinkedList<Snake> snakes = new LinkedList<Snake>();
-	public LinkedList<Snake> backupSnakes = new LinkedList<Snake>(); // to
-																		// resume
-																		// from
-																		// single
-																		// mode
-	//player snakes
-	public Snake currentSnake = null;
-	public boolean manualControl = false;
-	
-	//controller snake
-	public Snake ruleBased = null;
-	public boolean runRuleBased = false;
-	
-	// Best:
-	public DNA bestDna = null;
-	public double bestscore = 0;
+	public GATrainer trainer = new GATrainer();
 
 	// Statistics:
 	public LinkedList<Double> fitnessTimeline = new LinkedList<Double>();
-	public double currentMaxFitness = 0;
-	public double allTimeMaxFitnessNN = 0;
-	public double currentMaxFitnessRuleBased = 0;
 
 	// Mode control:
-	public boolean singleSnakeModeActive = false;
 	public boolean displayStatisticsActive = false;
 	public boolean simulationPaused = false;
 
 	/**
-	 * Component with the main loop This should be separated from the graphics,
-	 * but I was to lazy.
+	 * Component with the main loop. The simulation itself is done by the
+	 * GATrainer, this only handles keys, timing and graphics.
 	 */
 	public GameLoop(KeyboardListener keyb) {
 		world.height = 200;
 		world.width = 300;
 		new Thread(new Runnable() {
-			private long simulationLastMillis;
-			private long statisticsLastMillis;
+			private long statisticsLastMillis = 0;
 
-			@SuppressWarnings("unchecked")
 			public void run() {
-				simulationLastMillis = System.currentTimeMillis() + 100; // initial
-																			// wait
-																			// for
-																			// graphics
-																			// to
-																			// settle
-				statisticsLastMillis = 0;
-				while (true) {
-					if (System.currentTimeMillis() - simulationLastMillis > UPDATEPERIOD) {
-						synchronized (snakes) { // protect read
-							long currentTime = System.currentTimeMillis();
+				// initial wait for graphics to settle, then one tick per
+				// UPDATEPERIOD. Repaints are skipped while catching up
+				scheduler.run(new Runnable() {
+					public void run() {
+						synchronized (trainer.snakes) { // protect read
+							long currentTime = System.nanoTime();
 							// Controls
 							char keyCode = (char) keyb.getKey();
 							switch (keyCode) {
 							case ' ': // space
-								if (!singleSnakeModeActive) {
-									singleSnakeModeActive = true;
+								if (!trainer.singleSnakeModeActive) {
 									displayStatisticsActive = false;
-									backupSnakes.clear();
-									backupSnakes.addAll(snakes);
-									snakes.clear();
-									snakes.add(new Snake(bestDna, world));
+									trainer.watchBest(world);
 								}
 								break;
 							case 'A': // a = pause
@@ -110,177 +71,61 @@ public class GameLoop extends JComponent {
 								displayStatisticsActive = false;
 								break;
 							case 'E':
-								if(manualControl == true)
-									manualControl = false;
+								if(trainer.manualControl == true)
+									trainer.manualControl = false;
 								else
-									manualControl = true;
+									trainer.manualControl = true;
 								break;
 							case 'F':
-								if(runRuleBased == true)
-									runRuleBased = false;
+								if(trainer.runRuleBased == true)
+									trainer.runRuleBased = false;
 								else
-									runRuleBased = true;
+									trainer.runRuleBased = true;
 								break;
 							case '%':
-								if(manualControl && currentSnake != null)
-									currentSnake.dir = -.08;
+								if(trainer.manualControl && trainer.currentSnake != null)
+									trainer.currentSnake.dir = -.08;
 								break;
 							case '\'':
-								if(manualControl && currentSnake != null)
-									currentSnake.dir = .08;
+								if(trainer.manualControl && trainer.currentSnake != null)
+									trainer.currentSnake.dir = .08;
 								break;
 							default:
-								if(manualControl & currentSnake != null)
-									currentSnake.dir = 0;
-							}
-							// initilize first generation:
-							if (snakes.isEmpty()) {
-								firstGeneration(numSnakes);
-								world.newNibble(numNibbles);
+								if(trainer.manualControl & trainer.currentSnake != null)
+									trainer.currentSnake.dir = 0;
 							}
 							// computation:
 							if (!simulationPaused) {
-								int deadCount = 0;
-								world.update(getWidth(), getHeight());
+								world.width = getWidth();
+								world.height = getHeight();
+								trainer.tick(world);
 								synchronized (fitnessTimeline) {
-									if (world.clock - statisticsLastMillis > 1000 && !singleSnakeModeActive) {
-										fitnessTimeline.addLast(currentMaxFitness);
-										currentMaxFitness = 0;
+									if (world.clock - statisticsLastMillis > 1000 && !trainer.singleSnakeModeActive) {
+										fitnessTimeline.addLast(trainer.getCurrentMaxFitness());
+										trainer.resetCurrentMaxFitness();
 										if (fitnessTimeline.size() >= world.width / 2) {
 											fitnessTimeline.removeFirst();
 										}
 										statisticsLastMillis = world.clock;
 									}
 								}
-								for (Snake s : snakes) {
-									if (!s.update(world)) {
-										deadCount++;
-									}
-									if (s.getFitness() > currentMaxFitness && s!= ruleBased)
-										currentMaxFitness = s.getFitness();
-										if(currentMaxFitness > allTimeMaxFitnessNN) allTimeMaxFitnessNN = currentMaxFitness;
-									if (s.getFitness() > currentMaxFitnessRuleBased && s == ruleBased){
-										currentMaxFitnessRuleBased = s.getFitness();
-									}
-									if (s.getFitness() > bestscore) {
-										bestscore = s.getFitness();
-										bestDna = s.dna;
-									}
-								}
-								if (deadCount > 0 && singleSnakeModeActive) {
-									singleSnakeModeActive = false;
-									snakes.clear();
-									snakes.addAll(backupSnakes);
-
-								} else {
-									// new snakes
-									for (int i = 0; i < deadCount; i++) {
-										newSnake();
-										currentGeneration += 1 / (double) numSnakes;
-										if(((int) currentGeneration) > intGeneration) {
-											intGeneration = (int) currentGeneration;
-											newEra = true;
-										}
-										if((((int) currentGeneration) % 50 == 0) && newEra){
-											newEra = false;
-											ArrayList<Snake> snakesSorted = new ArrayList<>();
-											snakesSorted.addAll(snakes);
-											Collections.sort(snakesSorted);
-											System.out.println("Generation: " + Integer.toString(intGeneration) + " Max Fitness: " + Double.toString(currentMaxFitness));
-										}
-									}
-								}
-								Iterator<Snake> it = snakes.iterator();
-								while (it.hasNext()) {
-									Snake s = it.next();
-									if (s.deathFade <= 0) {
-										it.remove();
-									}
-								}
-							} else {
+							} else if (!trainer.snakes.isEmpty()) {
 								// print status:
-								snakes.get(0).brain(world);
+								trainer.snakes.get(0).brain(world);
 							}
 
-							repaint();
-							per = System.currentTimeMillis() - currentTime;
-							simulationLastMillis += UPDATEPERIOD;
+							per = (System.nanoTime() - currentTime) / 1e6;
 						}
 					}
-				}
+				}, new Runnable() {
+					public void run() {
+						repaint();
+					}
+				}, 100 * 1000000L);
 			}
 		}).start();
 	}
 
-	/**
-	 * initializes snake array with n fresh snakes
-	 * 
-	 * @param n
-	 *            amount of snakes
-	 */
-	public void firstGeneration(int n) {
-		snakes.clear();
-		for (int i = 0; i < n; i++) {
-			snakes.add(new Snake(null, world));
-		}
-		world.reset();
-	}
-
-	/**
-	 * Creates the mating pool out of the snake-list
-	 * 
-	 * @return Mating pool as list
-	 */
-	public ArrayList<Snake> makeMatingpool() {
-		ArrayList<Snake> matingpool = new ArrayList<Snake>();
-		// get maximum fitness:
-		double maxscore = 0;
-		for (Snake s : snakes) {
-			if (s.getFitness() > maxscore && ruleBased != s && currentSnake != s) {
-				maxscore = s.getFitness();
-			}
-		}
-		// Add snakes according to fitness
-		for (Snake s : snakes) {
-			if(ruleBased == s || currentSnake == s)
-				continue;
-			int amount = (int) (s.getFitness() * 100 / maxscore);
-			for (int i = 0; i < amount; i++) {
-				matingpool.add(s);
-			}
-		}
-		return matingpool;
-	}
-
-	/**
-	 * Creates a new snake using the genetic algorithm and adds it to the
-	 * snake-list
-	 */
-	public void newSnake() {
-		mutationrate = 10 / currentMaxFitness;
-		ArrayList<Snake> matingpool = makeMatingpool();
-		int idx1 = (int) (Math.random() * matingpool.size());
-		int idx2 = (int) (Math.random() * matingpool.size());
-		DNA parentA = matingpool.get(idx1).dna;
-		DNA parentB = matingpool.get(idx2).dna;
-		Snake s = new Snake(parentA.crossoverBytewise(parentB, mutationrate), world);
-		snakes.add(s);
-		if(manualControl && (currentSnake == null || currentSnake.deathFade <= 0)) {
-			if(currentSnake != null) {
-				System.out.println(currentSnake.score);
-			}
-			s.manual = true;
-			currentSnake = s;
-		} else if(runRuleBased && (ruleBased == null || ruleBased.deathFade <= 0 )) {
-			if(ruleBased != null) {
-				System.out.println("t: "+Long.toString(world.clock / 1000)+"\tRule-based: "+currentMaxFitnessRuleBased+"\t\tBest NN: "+allTimeMaxFitnessNN);
-				currentMaxFitnessRuleBased = 0;
-			}
-			s.ruled = true;
-			ruleBased = s;
-		}
-	}
-
 	/**
 	 * Show graphics
 	 */
@@ -296,17 +141,17 @@ public class GameLoop extends JComponent {
 			g.setFont(new Font("Arial", 0, 64));
 			g.drawString("t = " + Long.toString(world.clock / 1000), 20, 105);
 
-			g.drawString("g = " + Integer.toString((int) currentGeneration), 20, 205);
+			g.drawString("g = " + Integer.toString((int) trainer.currentGeneration), 20, 205);
 			g.setFont(new Font("Arial", 0, 32));
-			g.drawString("Mut. Prob.: " + String.format("%1$,.3f", mutationrate), 20, 305);
-			g.drawString("Max fitness: " + Integer.toString((int) currentMaxFitness), 20, 355);
+			g.drawString("Mut. Prob.: " + String.format("%1$,.3f", trainer.mutationrate), 20, 305);
+			g.drawString("Max fitness: " + Integer.toString((int) trainer.currentMaxFitness), 20, 355);
 
-			if(runRuleBased && ruleBased != null && ruleBased.debugInputArray != null){
+			if(trainer.runRuleBased && trainer.ruleBased != null && trainer.ruleBased.debugInputArray != null){
 				g.setFont(new Font("Arial", 0, 16));
-				g.drawString(ruleBased.debugOutput, 320, 180);
+				g.drawString(trainer.ruleBased.debugOutput, 320, 180);
 				g.drawString("Rule based snake input (0 is wall, 1 is snake, 2 is food):", 320, 205);
-				for(int i = 0; i < ruleBased.debugInputArray.length; i++){
-					Snake.Thing t = ruleBased.debugInputArray[i];
+				for(int i = 0; i < trainer.ruleBased.debugInputArray.length; i++){
+					Snake.Thing t = trainer.ruleBased.debugInputArray[i];
 					g.drawString("#"+i+"-Type "+t.type+"-Distance: "+t.distance, 330, 225+20*i);
 				}
 				
@@ -319,8 +164,8 @@ public class GameLoop extends JComponent {
 					double last = fitnessTimeline.getFirst();
 					int x = 0;
 					double limit = getHeight();
-					if (limit < bestscore)
-						limit = bestscore;
+					if (limit < trainer.bestscore)
+						limit = trainer.bestscore;
 					for (Double d : fitnessTimeline) {
 						g.setColor(new Color(0, 1, 0, .5f));
 						g.drawLine(x, (int) (getHeight() - getHeight() * last / limit), x + 2, (int) (getHeight() - getHeight() * d / limit));
@@ -330,11 +175,11 @@ public class GameLoop extends JComponent {
 				}
 			}
 		}
-		if (runRuleBased) {
+		if (trainer.runRuleBased) {
 			g.setColor(Color.DARK_GRAY);
 			g.setFont(new Font("Arial", 0, 32));
 			g.drawString("Rule Based Mode Enabled", 320, 105);
-		}if (manualControl) {
+		}if (trainer.manualControl) {
 			g.setColor(Color.DARK_GRAY);
 			g.setFont(new Font("Arial", 0, 32));
 			g.drawString("Manual Mode Enabled", 720, 105);
@@ -342,12 +187,12 @@ public class GameLoop extends JComponent {
 		
 		
 		// neural net:
-		if (singleSnakeModeActive) {
-			snakes.getFirst().brainNet.display(g, 0, world.width, world.height);
+		if (trainer.singleSnakeModeActive) {
+			trainer.snakes.getFirst().brainNet.display(g, 0, world.width, world.height);
 		}
 		// snakes:
-		synchronized (snakes) {
-			for (Snake s : snakes)
+		synchronized (trainer.snakes) {
+			for (Snake s : trainer.snakes)
 				s.draw(g);
 			world.draw(g);
 		}
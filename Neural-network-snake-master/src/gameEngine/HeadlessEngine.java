@@ -0,0 +1,98 @@
+package gameEngine;
+
+import helpers.FixedTimestepScheduler;
+
+public class HeadlessEngine implements Runnable {
+	/**
+	 * Runs a TrainingStrategy without any window. The world size is fixed by
+	 * the configuration instead of being taken from a component, and in fast
+	 * mode the ticks run back to back, limited only by the CPU.
+	 */
+	public World world = new World();
+	public TrainingStrategy strategy;
+	public boolean fastMode = true; // false: one tick per UPDATEPERIOD like the GUI
+	public int maxGenerations = 0; // 0: run forever
+	public long reportPeriodMillis = 5000; // wall clock time between progress lines
+
+	public volatile boolean running = false;
+	public long ticks = 0;
+	public volatile FixedTimestepScheduler scheduler = null; // only used when paced, set by the run thread and read by stop()
+	private long startMillis;
+	private long reportLastMillis;
+	private int reportLastGeneration;
+
+	/**
+	 * C'tor
+	 *
+	 * @param strategy	training method to run
+	 * @param width		world width
+	 * @param height	world height
+	 */
+	public HeadlessEngine(TrainingStrategy strategy, int width, int height) {
+		this.strategy = strategy;
+		world.width = width;
+		world.height = height;
+	}
+
+	/**
+	 * Main loop, returns when maxGenerations is reached or stop() was called
+	 */
+	public void run() {
+		running = true;
+		startMillis = System.currentTimeMillis();
+		reportLastMillis = startMillis;
+		reportLastGeneration = 0;
+		if (fastMode) {
+			while (running) {
+				step();
+			}
+		} else {
+			final FixedTimestepScheduler scheduler = new FixedTimestepScheduler(World.UPDATEPERIOD * 1000000L, 5);
+			this.scheduler = scheduler;
+			scheduler.run(new Runnable() {
+				public void run() {
+					step();
+					if (!running)
+						scheduler.stop();
+				}
+			}, null, 0);
+		}
+		double seconds = Math.max(System.currentTimeMillis() - startMillis, 1) / 1000d;
+		System.out.println("Finished after " + ticks + " ticks, " + strategy.getGeneration() + " generations in "
+				+ String.format("%1$,.1f", seconds) + " s. Best Fitness: " + Double.toString(strategy.getBestScore()));
+		if (scheduler != null) {
+			System.out.println("Tick jitter mean: " + String.format("%1$,.3f", scheduler.getMeanJitterMillis()) + " ms, max: "
+					+ String.format("%1$,.3f", scheduler.getMaxJitterMillis()) + " ms, dropped ticks: " + scheduler.droppedTicks);
+		}
+	}
+
+	/**
+	 * One tick plus progress output, clears running when the generation limit is reached
+	 */
+	private void step() {
+		strategy.tick(world);
+		ticks++;
+
+		long now = System.currentTimeMillis();
+		if (now - reportLastMillis >= reportPeriodMillis) {
+			double seconds = (now - reportLastMillis) / 1000d;
+			System.out.println("Generation: " + strategy.getGeneration() + " Generations/s: "
+					+ String.format("%1$,.2f", (strategy.getGeneration() - reportLastGeneration) / seconds) + " Best Fitness: "
+					+ Double.toString(strategy.getBestScore()));
+			reportLastMillis = now;
+			reportLastGeneration = strategy.getGeneration();
+		}
+		if (maxGenerations > 0 && strategy.getGeneration() >= maxGenerations)
+			running = false;
+	}
+
+	/**
+	 * Lets the main loop end after the current tick
+	 */
+	public void stop() {
+		running = false;
+		FixedTimestepScheduler scheduler = this.scheduler;
+		if (scheduler != null)
+			scheduler.stop();
+	}
+}
@@ -0,0 +1,219 @@
+package gameEngine;
+
+import genetics.DNA;
+import helpers.RandomStreams;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import neuralNetwork.Inference;
+
+public class IslandGATrainer implements TrainingStrategy {
+	/**
+	 * Island model: several GATrainer populations, each evolving in its own
+	 * World on its own thread. Every migrationInterval generations an island
+	 * sends copies of its fittest genomes to the next island of the ring,
+	 * through a lock-free queue that the receiver drains when it needs new
+	 * snakes (see GATrainer.immigrants). Apart from the queues the islands
+	 * share nothing, and small separate populations stay more diverse than
+	 * one population of the same total size.
+	 *
+	 * tick() only collects the statistics of the islands, they run as fast
+	 * as they can in between. Each island draws from its own random stream,
+	 * but when migrants arrive depends on the thread timing, so a seeded run
+	 * is not replayed exactly.
+	 */
+	public int migrationInterval = 10; // generations between two migrations of one island
+	public int migrants = 2; // genomes sent per migration
+	public int numNibbles = GATrainer.defaultNibbles; // per island
+	public final Inference inference; // of all snakes on all islands
+	public Island islands[];
+
+	// Best:
+	public DNA bestDna = null;
+	public double bestscore = 0;
+
+	// Statistics:
+	public double currentMaxFitness = 0;
+	public int intGeneration = 0;
+
+	/**
+	 * Best genome of an island with its fitness, never changed once published
+	 */
+	public static class Best {
+		public final double score;
+		public final DNA dna;
+
+		Best(double score, DNA dna) {
+			this.score = score;
+			this.dna = dna;
+		}
+	}
+
+	/**
+	 * One population with its world and thread
+	 */
+	public class Island implements Runnable {
+		public GATrainer trainer = new GATrainer(inference);
+		public World world = new World();
+		public ConcurrentLinkedQueue<DNA> inbox = new ConcurrentLinkedQueue<DNA>();
+		public Island next; // receives the migrants
+		public volatile boolean running = false;
+		public volatile boolean resetMax = false; // resetCurrentMaxFitness() by the island thread itself
+		public Thread thread;
+		private SplittableRandom random = RandomStreams.get().split();
+		private int lastMigration = 0;
+
+		// published after every tick for the statistics:
+		public volatile int generation = 0;
+		public volatile double currentMaxFitness = 0;
+		public volatile Best best = null; // score and genome in one, so they are always read together
+
+		Island(int width, int height) {
+			world.width = width;
+			world.height = height;
+			trainer.immigrants = inbox;
+			trainer.numNibbles = numNibbles;
+			trainer.printProgress = false; // tick() reports for all islands
+		}
+
+		public void run() {
+			RandomStreams.set(random);
+			while (running) {
+				if (resetMax) {
+					resetMax = false;
+					trainer.resetCurrentMaxFitness();
+				}
+				trainer.tick(world);
+				if (trainer.intGeneration - lastMigration >= migrationInterval) {
+					lastMigration = trainer.intGeneration;
+					emigrate();
+				}
+				generation = trainer.intGeneration;
+				currentMaxFitness = trainer.currentMaxFitness;
+				if (best == null || trainer.bestscore > best.score)
+					best = new Best(trainer.bestscore, trainer.bestDna.copy());
+			}
+		}
+
+		/**
+		 * Sends copies of the fittest living snakes to the next island
+		 */
+		private void emigrate() {
+			ArrayList<Snake> sorted = new ArrayList<Snake>(trainer.snakes);
+			sorted.sort(Comparator.comparingDouble(Snake::getFitness));
+			for (int i = 0; i < migrants && i < sorted.size(); i++) {
+				next.inbox.offer(sorted.get(sorted.size() - 1 - i).dna.copy());
+			}
+		}
+	}
+
+	/**
+	 * C'tor
+	 *
+	 * @param numIslands	number of populations, one thread each
+	 */
+	public IslandGATrainer(int numIslands) {
+		this(numIslands, Inference.EXACT);
+	}
+
+	/**
+	 * C'tor
+	 *
+	 * @param numIslands	number of populations, one thread each
+	 * @param inference		mode of the networks of all snakes
+	 */
+	public IslandGATrainer(int numIslands, Inference inference) {
+		islands = new Island[Math.max(1, numIslands)];
+		this.inference = inference;
+	}
+
+	public void tick(World world) {
+		if (islands[0] == null)
+			start(world);
+		try {
+			Thread.sleep(World.UPDATEPERIOD);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		world.clock += World.UPDATEPERIOD;
+		int generation = Integer.MAX_VALUE;
+		for (Island island : islands) {
+			generation = Math.min(generation, island.generation);
+			if (island.currentMaxFitness > currentMaxFitness)
+				currentMaxFitness = island.currentMaxFitness;
+			Best best = island.best;
+			if (best != null && best.score > bestscore) {
+				bestscore = best.score;
+				bestDna = best.dna;
+			}
+		}
+		if (generation / 50 > intGeneration / 50) {
+			System.out.println("Generation: " + Integer.toString(generation) + " Max Fitness: " + Double.toString(currentMaxFitness));
+		}
+		intGeneration = generation;
+	}
+
+	/**
+	 * Creates the islands in the size of the given world and starts their
+	 * threads. The worlds and random streams are made here, so they only
+	 * depend on the seed.
+	 *
+	 * @param world	template for the size of the island worlds
+	 */
+	private void start(World world) {
+		for (int i = 0; i < islands.length; i++) {
+			islands[i] = new Island(world.width, world.height);
+		}
+		for (int i = 0; i < islands.length; i++) {
+			Island island = islands[i];
+			island.next = islands[(i + 1) % islands.length];
+			island.running = true;
+			island.thread = new Thread(island, "island " + i);
+			island.thread.setDaemon(true);
+			island.thread.start();
+		}
+	}
+
+	/**
+	 * Lets all island threads end after their current tick and waits for them
+	 */
+	public void stop() {
+		for (Island island : islands) {
+			if (island != null)
+				island.running = false;
+		}
+		for (Island island : islands) {
+			if (island == null)
+				continue;
+			try {
+				island.thread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	public int getGeneration() {
+		return intGeneration;
+	}
+
+	public double getCurrentMaxFitness() {
+		return currentMaxFitness;
+	}
+
+	public double getBestScore() {
+		return bestscore;
+	}
+
+	public void resetCurrentMaxFitness() {
+		currentMaxFitness = 0;
+		for (Island island : islands) {
+			if (island != null)
+				island.resetMax = true;
+		}
+	}
+}
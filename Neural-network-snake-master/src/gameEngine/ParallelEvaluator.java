@@ -0,0 +1,182 @@
+package gameEngine;
+
+import genetics.DNA;
+import helpers.RandomStreams;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import neuralNetwork.BatchNet;
+import neuralNetwork.Inference;
+
+public class ParallelEvaluator {
+	/**
+	 * Evaluates a population of DNA on a thread pool. Every batch of snakes
+	 * gets its own World, so the workers share nothing but the read-only
+	 * parent DNA and need no locking.
+	 * The brains of a batch are evaluated together by a BatchNet: each tick
+	 * all snakes of a world look around first, then think in one pass, then
+	 * move. So within a tick a snake does not notice what the others did.
+	 * Each batch draws from a stream split off the caller's in batch order,
+	 * so the results do not depend on which worker runs which batch.
+	 */
+	public int numNibbles = GATrainer.defaultNibbles;
+	public int batchSize; // snakes sharing one world, 1 = every snake alone
+	public long maxTicks = 20000; // upper limit for one life
+	public boolean batchedBrains = true; // false: every snake thinks on its own, see batchable()
+	public final Inference inference; // how the snakes' networks calculate
+	private ForkJoinPool pool;
+	// snakes of finished batches per worker thread, reset for the next batch:
+	private final ThreadLocal<ArrayList<Snake>> recycled = new ThreadLocal<ArrayList<Snake>>() {
+		protected ArrayList<Snake> initialValue() {
+			return new ArrayList<Snake>();
+		}
+	};
+
+	/**
+	 * C'tor
+	 *
+	 * @param threads	number of worker threads, e.g. number of cores
+	 * @param batchSize	number of snakes evaluated together in one world
+	 */
+	public ParallelEvaluator(int threads, int batchSize) {
+		this(threads, batchSize, Inference.EXACT);
+	}
+
+	/**
+	 * C'tor
+	 *
+	 * @param threads	number of worker threads, e.g. number of cores
+	 * @param batchSize	number of snakes evaluated together in one world
+	 * @param inference	mode of the networks of all snakes
+	 */
+	public ParallelEvaluator(int threads, int batchSize, Inference inference) {
+		this.pool = new ForkJoinPool(threads);
+		this.batchSize = Math.max(1, batchSize);
+		this.inference = inference;
+	}
+
+	/**
+	 * Lets every DNA live once and returns the fitness it died with
+	 *
+	 * @param population	genomes to evaluate
+	 * @param width			world width
+	 * @param height		world height
+	 * @return				fitness, same order as population
+	 */
+	public double[] evaluate(final DNA population[], final int width, final int height) {
+		final double fitness[] = new double[population.length];
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for (int b = 0; b < population.length; b += batchSize) {
+			final int from = b;
+			final int to = Math.min(b + batchSize, population.length);
+			final SplittableRandom random = RandomStreams.get().split();
+			tasks.add(new Callable<Void>() {
+				public Void call() {
+					SplittableRandom previous = RandomStreams.set(random);
+					try {
+						evaluateBatch(population, fitness, from, to, width, height);
+					} finally {
+						RandomStreams.set(previous);
+					}
+					return null;
+				}
+			});
+		}
+		for (Future<Void> f : pool.invokeAll(tasks)) {
+			try {
+				f.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				throw new RuntimeException(e.getCause());
+			}
+		}
+		return fitness;
+	}
+
+	/**
+	 * Runs one independent world until all of its snakes are dead
+	 */
+	private void evaluateBatch(DNA population[], double fitness[], int from, int to, int width, int height) {
+		World world = new World();
+		world.width = width;
+		world.height = height;
+		world.maxNibbles = Math.max(world.maxNibbles, numNibbles);
+		world.newNibble(numNibbles);
+		ArrayList<Snake> spares = recycled.get();
+		Snake snakes[] = new Snake[to - from];
+		for (int i = 0; i < snakes.length; i++) {
+			if (spares.isEmpty()) {
+				snakes[i] = new Snake(population[from + i], world, inference);
+			} else {
+				snakes[i] = spares.remove(spares.size() - 1);
+				snakes[i].reset(population[from + i], world);
+			}
+		}
+		BatchNet batchNet = null;
+		int inputSize = Snake.stageSizes[0];
+		int outputSize = Snake.stageSizes[Snake.stageSizes.length - 1];
+		double inputs[] = new double[snakes.length * inputSize];
+		byte coeffs[][] = new byte[snakes.length][];
+		Snake thinking[] = new Snake[snakes.length];
+		if (batchedBrains && snakes.length > 1 && batchable())
+			batchNet = new BatchNet(Snake.stageSizes, snakes.length, inference);
+		int alive = snakes.length;
+		for (long t = 0; alive > 0 && t < maxTicks; t++) {
+			world.update();
+			alive = 0;
+			if (batchNet == null) {
+				for (Snake s : snakes) {
+					if (s.isDead)
+						continue;
+					s.update(world);
+					if (!s.isDead)
+						alive++;
+				}
+				continue;
+			}
+			int n = 0;
+			for (Snake s : snakes) {
+				if (s.isDead)
+					continue;
+				System.arraycopy(s.sense(world), 0, inputs, n * inputSize, inputSize);
+				coeffs[n] = s.brainNet.getCoeffs();
+				thinking[n++] = s;
+			}
+			double output[] = batchNet.calc(coeffs, inputs, n);
+			for (int k = 0; k < n; k++) {
+				Snake s = thinking[k];
+				s.update(world, s.steer(output[k * outputSize], output[k * outputSize + 1]));
+				if (!s.isDead)
+					alive++;
+			}
+		}
+		for (int i = 0; i < snakes.length; i++) {
+			fitness[from + i] = snakes[i].getFitness();
+			spares.add(snakes[i]);
+		}
+	}
+
+	/**
+	 * The BatchNet only knows the dense double path. With pruning, fixed
+	 * point, int8 kernel, incremental brains or symmetric stages it would
+	 * compute something else than Snake.brain(), so then every snake
+	 * thinks on its own and the fitness is the same as in the GATrainer.
+	 *
+	 * @return true if the BatchNet gives the same outputs as the snakes' own networks
+	 */
+	boolean batchable() {
+		return !inference.quantized && inference.pruneThreshold <= 0 && !inference.int8Kernel && inference.incrementalThreshold < 0
+				&& !Snake.isNNSymmetric;
+	}
+
+	public void shutdown() {
+		pool.shutdown();
+	}
+}
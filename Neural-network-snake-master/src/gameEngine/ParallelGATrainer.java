@@ -0,0 +1,125 @@
+package gameEngine;
+
+import genetics.DNA;
+import genetics.FitnessSelector;
+
+import neuralNetwork.Inference;
+
+public class ParallelGATrainer implements TrainingStrategy {
+	/**
+	 * Generational genetic algorithm: the whole population is evaluated in
+	 * parallel by a ParallelEvaluator, then the next generation is bred from
+	 * the resulting fitness values. One tick is one generation.
+	 * The DNA of two generations is kept and reused in turn, bestDna is a copy.
+	 */
+	public int populationSize;
+	public DNA population[];
+	private DNA spare[]; // population before the last one, overwritten by breed()
+	public double fitness[];
+	public ParallelEvaluator evaluator;
+	private FitnessSelector selector = new FitnessSelector();
+
+	// Genetics parameter initialization:
+	public double mutationrate = .02;
+	public int intGeneration = 0;
+
+	// Best:
+	public DNA bestDna = null;
+	public double bestscore = 0;
+
+	// Statistics:
+	public double currentMaxFitness = 0;
+
+	/**
+	 * C'tor
+	 *
+	 * @param populationSize	number of snakes per generation
+	 * @param threads			number of worker threads
+	 * @param batchSize			number of snakes sharing one world
+	 */
+	public ParallelGATrainer(int populationSize, int threads, int batchSize) {
+		this(populationSize, threads, batchSize, Inference.EXACT);
+	}
+
+	/**
+	 * C'tor
+	 *
+	 * @param populationSize	number of snakes per generation
+	 * @param threads			number of worker threads
+	 * @param batchSize			number of snakes sharing one world
+	 * @param inference			mode of the networks of all snakes
+	 */
+	public ParallelGATrainer(int populationSize, int threads, int batchSize, Inference inference) {
+		this.populationSize = populationSize;
+		this.evaluator = new ParallelEvaluator(threads, batchSize, inference);
+	}
+
+	public void tick(World world) {
+		if (population == null) {
+			int dnalength = Snake.dnaLength();
+			population = new DNA[populationSize];
+			for (int i = 0; i < populationSize; i++) {
+				population[i] = new DNA(true, dnalength);
+			}
+		}
+		fitness = evaluator.evaluate(population, world.width, world.height);
+		world.clock += World.UPDATEPERIOD;
+
+		double generationMax = 0;
+		for (int i = 0; i < populationSize; i++) {
+			if (fitness[i] > generationMax)
+				generationMax = fitness[i];
+			if (fitness[i] > bestscore) {
+				bestscore = fitness[i];
+				bestDna = population[i].copy();
+			}
+		}
+		if (generationMax > currentMaxFitness)
+			currentMaxFitness = generationMax;
+		population = breed(generationMax);
+		intGeneration++;
+		if (intGeneration % 50 == 0) {
+			System.out.println("Generation: " + Integer.toString(intGeneration) + " Max Fitness: " + Double.toString(generationMax));
+		}
+	}
+
+	/**
+	 * Creates the next generation, parents are chosen proportional to their
+	 * fitness like in the mating pool of the GATrainer
+	 *
+	 * @param maxscore	highest fitness of the evaluated generation
+	 * @return			new population
+	 */
+	private DNA[] breed(double maxscore) {
+		mutationrate = 10 / maxscore;
+		// number of mating pool entries per snake, same weighting as GATrainer:
+		selector.clear();
+		for (int i = 0; i < populationSize; i++) {
+			selector.add((int) (fitness[i] * 100 / maxscore));
+		}
+		DNA next[] = spare != null ? spare : new DNA[populationSize];
+		for (int i = 0; i < populationSize; i++) {
+			DNA parentA = population[selector.pick()];
+			DNA parentB = population[selector.pick()];
+			next[i] = parentA.crossoverBytewise(parentB, mutationrate, next[i]);
+		}
+		spare = population;
+		return next;
+	}
+
+	public int getGeneration() {
+		return intGeneration;
+	}
+
+	public double getCurrentMaxFitness() {
+		return currentMaxFitness;
+	}
+
+	public double getBestScore() {
+		return bestscore;
+	}
+
+	public void resetCurrentMaxFitness() {
+		currentMaxFitness = 0;
+	}
+}
@@ -6,6 +6,9 @@ public class PhysicalCircle {
 	/*
 	 * Class for a basic 2D ball / circle shaped object; Position, Velocity,
 	 * Radius, General purpose timer t, Basic physics routines
+	 * The routines place circles along the normalised difference vector
+	 * instead of going through atan2() and cos()/sin(), and compare squared
+	 * distances where only a comparison is needed.
 	 */
 	// Attributes are public for C-Like access...
 	public double x;
@@ -118,12 +121,15 @@ public class PhysicalCircle {
 		if (this == o)
 			return;
 		double s = this.rad + o.rad;
-		double d = Math.sqrt((this.x - o.x) * (this.x - o.x) + (this.y - o.y) * (this.y - o.y));
-		double a = Math.atan2(this.y - o.y, this.x - o.x);
+		double dx = this.x - o.x;
+		double dy = this.y - o.y;
+		double d2 = dx * dx + dy * dy;
 
-		if (d < s) {
-			this.x = o.x + s * Math.cos(a);
-			this.y = o.y + s * Math.sin(a);
+		if (d2 < s * s) {
+			// place it at distance s along the normalised difference
+			double f = d2 > 0 ? s / Math.sqrt(d2) : 0;
+			this.x = o.x + (d2 > 0 ? dx * f : s);
+			this.y = o.y + dy * f;
 		}
 
 	}
@@ -139,12 +145,15 @@ public class PhysicalCircle {
 		if (this == o)
 			return;
 		double s = this.rad + o.rad;
-		double d = Math.sqrt((this.x - o.x) * (this.x - o.x) + (this.y - o.y) * (this.y - o.y));
-		double a = Math.atan2(this.y - o.y, this.x - o.x);
+		double dx = this.x - o.x;
+		double dy = this.y - o.y;
+		double d2 = dx * dx + dy * dy;
 
-		if (d < s) {
-			this.x = o.x + s * Math.cos(a);
-			this.y = o.y + s * Math.sin(a);
+		if (d2 < s * s) {
+			double d = Math.sqrt(d2);
+			double f = d > 0 ? s / d : 0;
+			this.x = o.x + (d > 0 ? dx * f : s);
+			this.y = o.y + dy * f;
 			this.vx -= (o.x - this.x) * 2 / d * speed / 5;
 			this.vy -= (o.y - this.y) * 2 / d * speed / 5;
 		}
@@ -160,11 +169,17 @@ public class PhysicalCircle {
 		if (this == o)
 			return;
 		double s = this.rad + o.rad;
-		double a = Math.atan2(this.y - o.y, this.x - o.x);
-		this.vx += (o.x + s * Math.cos(a) - this.x) / s / 32;
-		this.vy += (o.y + s * Math.sin(a) - this.y) / s / 32;
-		this.x += (o.x + s * Math.cos(a) - this.x) / s * 24 + o.vx * .24;
-		this.y += (o.y + s * Math.sin(a) - this.y) / s * 24 + o.vy * .24;
+		double dx = this.x - o.x;
+		double dy = this.y - o.y;
+		double d2 = dx * dx + dy * dy;
+		// offset of length s pointing from o to this circle, (s, 0) when they coincide
+		double f = d2 > 0 ? s / Math.sqrt(d2) : 0;
+		double ox = d2 > 0 ? dx * f : s;
+		double oy = dy * f;
+		this.vx += (o.x + ox - this.x) / s / 32;
+		this.vy += (o.y + oy - this.y) / s / 32;
+		this.x += (o.x + ox - this.x) / s * 24 + o.vx * .24;
+		this.y += (o.y + oy - this.y) / s * 24 + o.vy * .24;
 	}
 	/**
 	 * Makes this circle follow another circle so they always contact each other
@@ -175,9 +190,12 @@ public class PhysicalCircle {
 		if (this == o)
 			return;
 		double s = this.rad + o.rad;
-		double a = Math.atan2(this.y - o.y, this.x - o.x);
-		this.x = (o.x + s * Math.cos(a));
-		this.y = (o.y + s * Math.sin(a));
+		double dx = this.x - o.x;
+		double dy = this.y - o.y;
+		double d2 = dx * dx + dy * dy;
+		double f = d2 > 0 ? s / Math.sqrt(d2) : 0;
+		this.x = o.x + (d2 > 0 ? dx * f : s);
+		this.y = o.y + dy * f;
 	}
 	/**
 	 * checks whether this circle is closer than the threshold to another
@@ -187,9 +205,9 @@ public class PhysicalCircle {
 	 * @return	true when they're close
 	 */
 	public boolean isColliding(PhysicalCircle o, double thresholdDistance) {
-		double d = Math.sqrt((this.x - o.x) * (this.x - o.x) + (this.y - o.y) * (this.y - o.y));
-		double s = this.rad + o.rad;
-		return d < s + thresholdDistance;
+		// compares squared distances, no square root needed
+		double r = this.rad + o.rad + thresholdDistance;
+		return r > 0 && (this.x - o.x) * (this.x - o.x) + (this.y - o.y) * (this.y - o.y) < r * r;
 	}
 
 	public double getAbsoluteVelocity() {
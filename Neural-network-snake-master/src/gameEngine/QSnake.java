@@ -1,12 +1,12 @@
 package gameEngine;
 
 import helpers.DoubleMath;
+import helpers.RandomStreams;
 
 import java.awt.Color;
 import java.awt.Graphics;
 import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.SplittableRandom;
 
 import qLearning.QTable;
 
@@ -42,7 +42,7 @@ public class QSnake implements Comparable {
 	public final boolean snakeInertia = false;
 
 	// basic snake attributes:
-	public ArrayList<PhysicalCircle> snakeSegments = new ArrayList<PhysicalCircle>(100);
+	public SegmentStore snakeSegments = new SegmentStore(100);
 	public QTable Q;
 	public double age = 0;
 	public double angle;
@@ -52,6 +52,13 @@ public class QSnake implements Comparable {
 	public double deathFade = 180;
 	public double health;
 	
+	// sensors, buffers are reused so a tick allocates nothing:
+	private Vision vision = new Vision(fieldOfView, FOV_DIVISIONS, maximumSightDistance);
+	private Thing input[] = new Thing[FOV_DIVISIONS * 2];
+	private ArrayList<PhysicalCircle> nibblesToRemove = new ArrayList<PhysicalCircle>(4);
+	private ArrayList<PhysicalCircle> nibblesInReach = new ArrayList<PhysicalCircle>(4);
+	private SelfCollider selfCollider = new SelfCollider(2 * World.globalCircleRadius);
+
 	public Thing[] debugInputArray = null;
 	public String debugOutput = "";
 
@@ -68,24 +75,24 @@ public class QSnake implements Comparable {
 	 */
 
 	public QSnake(QTable Q, World world) {
-		double x = Math.random() * (world.width - 2 * wallCollisionThreshold - 2 * GameLoop.globalCircleRadius) + wallCollisionThreshold
-				+ GameLoop.globalCircleRadius;
-		double y = Math.random() * (world.height - 2 * wallCollisionThreshold - 2 * GameLoop.globalCircleRadius) + wallCollisionThreshold
-				+ GameLoop.globalCircleRadius;
+		double x = world.random.nextDouble() * (world.width - 2 * wallCollisionThreshold - 2 * World.globalCircleRadius) + wallCollisionThreshold
+				+ World.globalCircleRadius;
+		double y = world.random.nextDouble() * (world.height - 2 * wallCollisionThreshold - 2 * World.globalCircleRadius) + wallCollisionThreshold
+				+ World.globalCircleRadius;
 
 		if (Q == null) {
 			throw new RuntimeException("Cannot initialize QSnake with null QTable");
 		} else {
 			this.Q = Q;
 		}
+		for (int i = 0; i < input.length; i++)
+			input[i] = new Thing();
 		snakeSegments.clear();
-		for (int i = 0; i < 1; i++) {
-			snakeSegments.add(new PhysicalCircle(x, y, GameLoop.globalCircleRadius));
-		}
+		snakeSegments.add(x, y, World.globalCircleRadius);
 		this.angle = Math.atan2(world.height / 2 - y, world.width / 2 - x);
 		
 
-		hue = (float) (Math.random());
+		hue = (float) (world.random.nextDouble());
 		score = 0;
 		deathFade = 180;
 		isDead = false;
@@ -107,8 +114,8 @@ public class QSnake implements Comparable {
 		}
 		age += .1;
 		
-		double slowdown = 49d / (48d + snakeSegments.size());
-		PhysicalCircle head = snakeSegments.get(0);
+		double slowdown = 49d / (48d + snakeSegments.size);
+		SegmentStore body = snakeSegments; // index 0 is the head
 		// calculate neural net
 		double angleIncrement;
 		if(updateAngle)angleIncrement = brain(world);
@@ -118,58 +125,46 @@ public class QSnake implements Comparable {
 		angle = DoubleMath.doubleModulo(angle, Math.PI * 2);
 
 		// collision with wall:
-		if (head.x - head.rad < wallCollisionThreshold) {
+		if (body.x[0] - body.rad[0] < wallCollisionThreshold) {
 			score /= 2;
 			snakeDies();
 			isDead = true;
 		}
-		if (head.x + head.rad > world.width - wallCollisionThreshold) {
+		if (body.x[0] + body.rad[0] > world.width - wallCollisionThreshold) {
 			score /= 2;
 			snakeDies();
 			isDead = true;
 		}
-		if (head.y - head.rad < wallCollisionThreshold) {
+		if (body.y[0] - body.rad[0] < wallCollisionThreshold) {
 			score /= 2;
 			snakeDies();
 			isDead = true;
 		}
-		if (head.y + head.rad > world.height - wallCollisionThreshold) {
+		if (body.y[0] + body.rad[0] > world.height - wallCollisionThreshold) {
 			score /= 2;
 			snakeDies();
 			isDead = true;
 		}
 		// Main movement:
-		head.vx = maximumForwardSpeed * slowdown * Math.cos(angle);
-		head.vy = maximumForwardSpeed * slowdown * Math.sin(angle);
+		body.vx[0] = maximumForwardSpeed * slowdown * Math.cos(angle);
+		body.vy[0] = maximumForwardSpeed * slowdown * Math.sin(angle);
 
-		PhysicalCircle previous = head;
-		for (int i = 0; i < snakeSegments.size(); i++) {
-			PhysicalCircle c = snakeSegments.get(i);
-			if (snakeInertia){
-				c.followBouncy(previous);
-			} else {
-				c.followStatic(previous);
-			}
-			
-			c.updatePosition();
-			for (int j = 0; j < i; j++) {
-				c.collideStatic(snakeSegments.get(j));
-			}
-			previous = c;
-			if (i > 1 && head.isColliding(c, 0)) {
-				isDead = true;
-				score /= 2;
-				snakeDies();
-				break;
-			}
+		// move the body, long snakes only test nearby segments for collisions
+		if (selfCollider.move(body, snakeInertia)) {
+			isDead = true;
+			score /= 2;
+			snakeDies();
 		}
 		// Check eaten nibbles:
-		LinkedList<PhysicalCircle> nibblesToRemove = new LinkedList<PhysicalCircle>();
+		nibblesToRemove.clear();
 		int nibbleEatCount = 0;
-		for (PhysicalCircle nibble : world.getNibbles()) {
-			if (head.isColliding(nibble, -10)) {
+		// only nibbles whose centers can be close enough
+		ArrayList<PhysicalCircle> nibbles = world.getNibblesInReach(body.x[0], body.y[0], body.rad[0] + World.globalCircleRadius, nibblesInReach);
+		for (int n = 0; n < nibbles.size(); n++) {
+			PhysicalCircle nibble = nibbles.get(n);
+			if (body.isColliding(0, nibble, -10)) {
 				score += world.calcValue(nibble);
-				snakeSegments.add(new PhysicalCircle(snakeSegments.get(snakeSegments.size() - 1).x, snakeSegments.get(snakeSegments.size() - 1).y, nibble.rad));
+				body.add(body.x[body.size - 1], body.y[body.size - 1], nibble.rad);
 				nibblesToRemove.add(nibble);
 				nibbleEatCount++;
 			}
@@ -220,32 +215,11 @@ public class QSnake implements Comparable {
 	 * @return angle increment to move
 	 */
 	public double brain(World world) {
-		// init input vector:
-		Thing input[] = new Thing[FOV_DIVISIONS * 2];
-		for (int i = 0; i < FOV_DIVISIONS * 2; i++)
-			input[i] = new Thing();
-		// nibbles:
-		input = updateVisualInput(input, world.getNibbles(), 2);
-		// snake:
-		input = updateVisualInput(input, snakeSegments, 1);
-		// walls:
-		/*
-		 * (This should be replaced by a better algorithm) It is basically a
-		 * brute force attempt converting the continuous border lines into many
-		 * PhysicalCirle objects to apply the same algorithm When someone comes
-		 * up with a better algorithm, please let me know :)
-		 */
-		int step = (int) (maximumSightDistance * Math.sin(fieldOfView / (FOV_DIVISIONS * 1d))) / 20;
-		LinkedList<PhysicalCircle> walls = new LinkedList<PhysicalCircle>();
-		for (int x = 0; x < world.width; x += step) {
-			walls.add(new PhysicalCircle(x, 0, 1));
-			walls.add(new PhysicalCircle(x, world.height, 1));
+		vision.look(world, snakeSegments, angle);
+		for (int i = 0; i < FOV_DIVISIONS * 2; i++) {
+			input[i].distance = vision.distance[i];
+			input[i].type = vision.type[i];
 		}
-		for (int y = 0; y < world.height; y += step) {
-			walls.add(new PhysicalCircle(0, y, 1));
-			walls.add(new PhysicalCircle(world.width, y, 1));
-		}
-		input = updateVisualInput(input, walls, 0);
 		
 		double angleIncrement = qLearningBrain(input);
 		if (angleIncrement > maximumAngularSpeed)
@@ -305,7 +279,8 @@ public class QSnake implements Comparable {
 
 		
 		//select new action via selection policy (in this case, epsilon-greedy):
-		double rand = Math.random();
+		SplittableRandom random = RandomStreams.get();
+		double rand = random.nextDouble();
 		if(FITNESS_DEPENDENT) rand += this.getFitness() / (600 /*stops randomness entirely at this fitness*/ / EPSILON);
 		if(rand >= EPSILON ){
 			//a' = whichever a' gives max Q(s',a')
@@ -321,7 +296,7 @@ public class QSnake implements Comparable {
 		}
 		if(rand < EPSILON){
 			//select a' randomly
-			Action = (int) (Math.random()*ACTIONS.length);
+			Action = random.nextInt(ACTIONS.length);
 		}
 
 		//record Q(lastState,lastAction) using SARSA
@@ -345,42 +320,6 @@ public class QSnake implements Comparable {
 		
 	}
 
-	/**
-	 * Function to update input vector Input Vector contains distance and type
-	 * of closest objects seen by each visual cell This function replaces those
-	 * by "Things" closer to the head of the snake Objects further away or
-	 * outside the FOV are ignored
-	 * 
-	 * @param input
-	 *            Array of the current things seen by the snake
-	 * @param objects
-	 *            List of objects to be checked
-	 * @param type
-	 *            Thing-Type: 0: Wall, 1: Snake, 2: Nibble
-	 * @return Updated input array
-	 */
-	private Thing[] updateVisualInput(Thing input[], List<PhysicalCircle> objects, int type) {
-		PhysicalCircle head = snakeSegments.get(0);
-		for (PhysicalCircle n : objects) {
-			if (head == n)
-				continue;
-			double a = DoubleMath.signedDoubleModulo(head.getAngleTo(n) - angle, Math.PI * 2);
-			double d = head.getDistanceTo(n);
-			if (a >= 0 && a < fieldOfView) {
-				if (d < input[(int) (a * FOV_DIVISIONS / fieldOfView)].distance) {
-					input[(int) (a * FOV_DIVISIONS / fieldOfView)].distance = d;
-					input[(int) (a * FOV_DIVISIONS / fieldOfView)].type = type;
-				}
-			} else if (a <= 0 && -a < fieldOfView) {
-				if (d < input[(int) (-a * FOV_DIVISIONS / fieldOfView) + FOV_DIVISIONS].distance) {
-					input[(int) (-a * FOV_DIVISIONS / fieldOfView) + FOV_DIVISIONS].distance = d;
-					input[(int) (-a * FOV_DIVISIONS / fieldOfView) + FOV_DIVISIONS].type = type;
-				}
-			}
-		}
-		return input;
-	}
-
 	/**
 	 * Draws the snake to Graphics
 	 * 
@@ -390,28 +329,30 @@ public class QSnake implements Comparable {
 	public void draw(Graphics g) {
 		// Snake body
 		int alpha = (int) deathFade;
-		for (int i = 0; i < snakeSegments.size(); i++) {
-			Color c = new Color(Color.HSBtoRGB(hue, 1 - (float) i / ((float) snakeSegments.size() + 1f), 1));
+		for (int i = 0; i < snakeSegments.size; i++) {
+			Color c = new Color(Color.HSBtoRGB(hue, 1 - (float) i / ((float) snakeSegments.size + 1f), 1));
 			g.setColor(new Color(c.getRed(), c.getGreen(), c.getBlue(), alpha));
-			PhysicalCircle p = snakeSegments.get(i);
-			g.fillOval((int) (p.x - p.rad), (int) (p.y - p.rad), (int) (2 * p.rad + 1), (int) (2 * p.rad + 1));
+			double x = snakeSegments.x[i], y = snakeSegments.y[i], rad = snakeSegments.rad[i];
+			g.fillOval((int) (x - rad), (int) (y - rad), (int) (2 * rad + 1), (int) (2 * rad + 1));
 		}
 		// Cute Eyes. A bit computationally expensive, so can be turned of
 		if (displayCuteEyes) {
 
-			PhysicalCircle p = snakeSegments.get(0); // get head
-			double dist = p.rad / 2.3;
-			double size = p.rad / 3.5;
+			// head:
+			double px = snakeSegments.x[0], py = snakeSegments.y[0], prad = snakeSegments.rad[0];
+			double pvx = snakeSegments.vx[0], pvy = snakeSegments.vy[0], pv = snakeSegments.getAbsoluteVelocity(0);
+			double dist = prad / 2.3;
+			double size = prad / 3.5;
 			g.setColor(new Color(255, 255, 255, alpha));
-			g.fillOval((int) (p.x + p.vy * dist / p.getAbsoluteVelocity() - size), (int) (p.y - p.vx * dist / p.getAbsoluteVelocity() - size),
+			g.fillOval((int) (px + pvy * dist / pv - size), (int) (py - pvx * dist / pv - size),
 					(int) (size * 2 + 1), (int) (size * 2 + 1));
-			g.fillOval((int) (p.x - p.vy * dist / p.getAbsoluteVelocity() - size), (int) (p.y + p.vx * dist / p.getAbsoluteVelocity() - size),
+			g.fillOval((int) (px - pvy * dist / pv - size), (int) (py + pvx * dist / pv - size),
 					(int) (size * 2 + 1), (int) (size * 2 + 1));
-			size = p.rad / 6;
+			size = prad / 6;
 			g.setColor(new Color(0, 0, 0, alpha));
-			g.fillOval((int) (p.x + p.vy * dist / p.getAbsoluteVelocity() - size), (int) (p.y - p.vx * dist / p.getAbsoluteVelocity() - size),
+			g.fillOval((int) (px + pvy * dist / pv - size), (int) (py - pvx * dist / pv - size),
 					(int) (size * 2 + 1), (int) (size * 2 + 1));
-			g.fillOval((int) (p.x - p.vy * dist / p.getAbsoluteVelocity() - size), (int) (p.y + p.vx * dist / p.getAbsoluteVelocity() - size),
+			g.fillOval((int) (px - pvy * dist / pv - size), (int) (py + pvx * dist / pv - size),
 					(int) (size * 2 + 1), (int) (size * 2 + 1));
 		}
 	}
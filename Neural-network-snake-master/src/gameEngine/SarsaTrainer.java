@@ -0,0 +1,136 @@
+package gameEngine;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedList;
+
+import qLearning.QTable;
+
+public class SarsaTrainer implements TrainingStrategy {
+	public static final int BRAINUPDATEPERIOD = 5; //Number of updates to pass between each brain update
+
+	// constants:
+	public static final int numSnakes = 8;
+	public static final int defaultNibbles = 4;
+	public int numNibbles = defaultNibbles; // kept in the world, eaten ones are replaced
+
+	// Generation counting (one generation = numSnakes deaths):
+	public double currentGeneration = 0;
+	public int intGeneration = 0;
+	public boolean newEra = true;
+
+	// snakes initialization:
+	public LinkedList<QSnake> snakes = new LinkedList<QSnake>();
+	private int numUpdatesSinceSnake = 0;
+
+	// Best:
+	public double bestscore = 0;
+
+	// Statistics:
+	public double currentMaxFitness = 0;
+	public double allTimeMaxFitnessNN = 0;
+
+	//Q Learning:
+	public QTable Q = new QTable();
+
+	/**
+	 * SARSA over one Q table shared by all snakes.
+	 * Dead snakes are replaced by fresh ones reading the same table.
+	 */
+	public void tick(World world) {
+		boolean updateBrain = false;
+		if(numUpdatesSinceSnake == BRAINUPDATEPERIOD){
+			numUpdatesSinceSnake = 0;
+			updateBrain = true;
+		}else numUpdatesSinceSnake++;
+
+		// initialize first generation:
+		if (snakes.isEmpty()) {
+			firstGeneration(numSnakes, world);
+			world.maxNibbles = Math.max(world.maxNibbles, numNibbles);
+			world.newNibble(numNibbles);
+		}
+		int deadCount = 0;
+		world.update();
+		for (QSnake s : snakes) {
+			if (!s.update(world, updateBrain)) {
+				deadCount++;
+			}
+			if (s.getFitness() > currentMaxFitness)
+				currentMaxFitness = s.getFitness();
+				if(currentMaxFitness > allTimeMaxFitnessNN) allTimeMaxFitnessNN = currentMaxFitness;
+			if (s.getFitness() > bestscore) {
+				bestscore = s.getFitness();
+			}
+		}
+		// new snakes
+		for (int i = 0; i < deadCount; i++) {
+			newSnake(world);
+			currentGeneration += 1 / (double) numSnakes;
+			if(((int) currentGeneration) > intGeneration) {
+				intGeneration = (int) currentGeneration;
+				newEra = true;
+			}
+			if((((int) currentGeneration) % 50 == 0) && newEra){
+				newEra = false;
+				ArrayList<QSnake> snakesSorted = new ArrayList<>();
+				snakesSorted.addAll(snakes);
+				snakesSorted.sort(Comparator.comparingDouble(QSnake::getFitness));
+				System.out.println("Generation: " + Integer.toString(intGeneration) + " Max Fitness: " + Double.toString(currentMaxFitness));
+			}
+
+		}
+		Iterator<QSnake> it = snakes.iterator();
+		while (it.hasNext()) {
+			QSnake s = it.next();
+			if (s.deathFade <= 0) {
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * initializes snake array with n fresh snakes
+	 *
+	 * @param n
+	 *            amount of snakes
+	 * @param world
+	 *            reference to the world for spawn point
+	 */
+	public void firstGeneration(int n, World world) {
+		snakes.clear();
+		for (int i = 0; i < n; i++) {
+			snakes.add(new QSnake(Q, world));
+		}
+		world.reset();
+	}
+
+	/**
+	 * Creates a new snake with the pre-existing Q table and adds it to the
+	 * snake-list
+	 *
+	 * @param world
+	 *            reference to the world for spawn point
+	 */
+	public void newSnake(World world) {
+		QSnake s = new QSnake(Q, world);
+		snakes.add(s);
+	}
+
+	public int getGeneration() {
+		return intGeneration;
+	}
+
+	public double getCurrentMaxFitness() {
+		return currentMaxFitness;
+	}
+
+	public double getBestScore() {
+		return bestscore;
+	}
+
+	public void resetCurrentMaxFitness() {
+		currentMaxFitness = 0;
+	}
+}
@@ -0,0 +1,145 @@
+package gameEngine;
+
+import java.util.Arrays;
+
+public class SegmentStore {
+	/*
+	 * Body of a snake as parallel primitive arrays instead of one
+	 * PhysicalCircle object per segment; index 0 is the head.
+	 * The physics routines do the same as the ones of PhysicalCircle,
+	 * but on indices, so the follow chain walks through contiguous memory.
+	 */
+	// Attributes are public for C-Like access...
+	public double x[];
+	public double y[];
+	public double vx[];
+	public double vy[];
+	public double rad[];
+	public int size = 0;
+
+	/**
+	 * C'tor
+	 *
+	 * @param capacity	initial number of segments that fit without growing
+	 */
+	public SegmentStore(int capacity) {
+		capacity = Math.max(capacity, 1);
+		x = new double[capacity];
+		y = new double[capacity];
+		vx = new double[capacity];
+		vy = new double[capacity];
+		rad = new double[capacity];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Appends a resting segment, the arrays grow by half when full
+	 *
+	 * @param x		x position
+	 * @param y		y position
+	 * @param rad	radius
+	 */
+	public void add(double x, double y, double rad) {
+		if (size == this.x.length) {
+			int capacity = size + size / 2 + 1;
+			this.x = Arrays.copyOf(this.x, capacity);
+			this.y = Arrays.copyOf(this.y, capacity);
+			this.vx = Arrays.copyOf(this.vx, capacity);
+			this.vy = Arrays.copyOf(this.vy, capacity);
+			this.rad = Arrays.copyOf(this.rad, capacity);
+		}
+		this.x[size] = x;
+		this.y[size] = y;
+		this.vx[size] = 0;
+		this.vy[size] = 0;
+		this.rad[size] = rad;
+		size++;
+	}
+
+	/**
+	 * updates the position of segment i based on its speed
+	 */
+	public void updatePosition(int i) {
+		x[i] += vx[i];
+		y[i] += vy[i];
+	}
+
+	/**
+	 * Makes segment i follow segment o so they always contact each other
+	 */
+	public void followStatic(int i, int o) {
+		if (i == o)
+			return;
+		double s = rad[i] + rad[o];
+		double dx = x[i] - x[o];
+		double dy = y[i] - y[o];
+		double d2 = dx * dx + dy * dy;
+		double f = d2 > 0 ? s / Math.sqrt(d2) : 0;
+		x[i] = x[o] + (d2 > 0 ? dx * f : s);
+		y[i] = y[o] + dy * f;
+	}
+
+	/**
+	 * Makes segment i follow segment o but retaining inertia
+	 */
+	public void followBouncy(int i, int o) {
+		if (i == o)
+			return;
+		double s = rad[i] + rad[o];
+		double dx = x[i] - x[o];
+		double dy = y[i] - y[o];
+		double d2 = dx * dx + dy * dy;
+		double f = d2 > 0 ? s / Math.sqrt(d2) : 0;
+		double ox = d2 > 0 ? dx * f : s;
+		double oy = dy * f;
+		vx[i] += (x[o] + ox - x[i]) / s / 32;
+		vy[i] += (y[o] + oy - y[i]) / s / 32;
+		x[i] += (x[o] + ox - x[i]) / s * 24 + vx[o] * .24;
+		y[i] += (y[o] + oy - y[i]) / s * 24 + vy[o] * .24;
+	}
+
+	/**
+	 * Pushes segment i out of segment o, forbids intersection
+	 */
+	public void collideStatic(int i, int o) {
+		if (i == o)
+			return;
+		double s = rad[i] + rad[o];
+		double dx = x[i] - x[o];
+		double dy = y[i] - y[o];
+		double d2 = dx * dx + dy * dy;
+
+		if (d2 < s * s) {
+			double f = d2 > 0 ? s / Math.sqrt(d2) : 0;
+			x[i] = x[o] + (d2 > 0 ? dx * f : s);
+			y[i] = y[o] + dy * f;
+		}
+	}
+
+	/**
+	 * checks whether segment i is closer than the threshold to segment o
+	 */
+	public boolean isColliding(int i, int o, double thresholdDistance) {
+		double r = rad[i] + rad[o] + thresholdDistance;
+		return r > 0 && (x[i] - x[o]) * (x[i] - x[o]) + (y[i] - y[o]) * (y[i] - y[o]) < r * r;
+	}
+
+	/**
+	 * checks whether segment i is closer than the threshold to a circle
+	 */
+	public boolean isColliding(int i, PhysicalCircle o, double thresholdDistance) {
+		double r = rad[i] + o.rad + thresholdDistance;
+		return r > 0 && (x[i] - o.x) * (x[i] - o.x) + (y[i] - o.y) * (y[i] - o.y) < r * r;
+	}
+
+	public double getAbsoluteVelocity(int i) {
+		return Math.sqrt(vx[i] * vx[i] + vy[i] * vy[i]);
+	}
+}
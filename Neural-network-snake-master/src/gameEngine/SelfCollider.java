@@ -0,0 +1,162 @@
+package gameEngine;
+
+public class SelfCollider {
+	/**
+	 * Resolves the collisions of a snake's segments with the segments before
+	 * them using a spatial hash, so only nearby segments are tested.
+	 * The result is the same as calling collideStatic() against every earlier
+	 * segment in order: the nearby ones are applied in the same order, and if
+	 * a segment is pushed further than the search margin allows, it falls
+	 * back to the full loop.
+	 *
+	 * Usage per tick: move(), or reset(), then for each segment i in order
+	 * collide(i) followed by insert(i).
+	 */
+	public double cellSize;
+	public double margin; // how far a segment may be pushed before falling back
+
+	private int tableHead[] = new int[0]; // first segment per hash bucket, -1 = empty
+	private int next[] = new int[0]; // next segment in the same bucket
+	private int candidates[] = new int[16];
+	private int mask;
+	private double maxRad;
+
+	// Statistics:
+	public long fallbacks = 0;
+
+	/**
+	 * C'tor
+	 *
+	 * @param cellSize	size of the hash cells, e.g. the segment diameter
+	 */
+	public SelfCollider(double cellSize) {
+		this.cellSize = cellSize;
+		this.margin = cellSize;
+	}
+
+	/**
+	 * Empties the hash for a snake with the given number of segments
+	 *
+	 * @param segments	number of segments
+	 */
+	public void reset(int segments) {
+		int size = Integer.highestOneBit(Math.max(segments, 8) * 2 - 1) * 2;
+		if (tableHead.length < size)
+			tableHead = new int[size];
+		if (next.length < segments)
+			next = new int[segments + segments / 2];
+		mask = size - 1;
+		for (int b = 0; b < size; b++)
+			tableHead[b] = -1;
+		maxRad = 0;
+	}
+
+	/**
+	 * Moves the segments of a snake for one tick: each one follows the one
+	 * before it, moves and is pushed out of the ones before it, through the
+	 * hash from World.GRIDTHRESHOLD segments on, else against every one.
+	 *
+	 * @param body		segments, index 0 is the head
+	 * @param bouncy	follow with inertia (followBouncy())
+	 * @return true if the head hit the body, the segments after the one it
+	 *         hit are not moved
+	 */
+	public boolean move(SegmentStore body, boolean bouncy) {
+		boolean hashed = World.spatialGrids && body.size >= World.GRIDTHRESHOLD;
+		if (hashed)
+			reset(body.size);
+		for (int i = 0; i < body.size; i++) {
+			int previous = i > 0 ? i - 1 : 0; // the head follows nothing
+			if (bouncy)
+				body.followBouncy(i, previous);
+			else
+				body.followStatic(i, previous);
+			body.updatePosition(i);
+			if (hashed) {
+				collide(body, i);
+				insert(body, i);
+			} else {
+				for (int j = 0; j < i; j++)
+					body.collideStatic(i, j);
+			}
+			if (i > 1 && body.isColliding(0, i, 0))
+				return true;
+		}
+		return false;
+	}
+
+	private int bucket(int cx, int cy) {
+		return ((cx * 73856093) ^ (cy * 19349663)) & mask;
+	}
+
+	/**
+	 * Adds segment i at its current position
+	 */
+	public void insert(SegmentStore segments, int i) {
+		int b = bucket((int) Math.floor(segments.x[i] / cellSize), (int) Math.floor(segments.y[i] / cellSize));
+		next[i] = tableHead[b];
+		tableHead[b] = i;
+		if (segments.rad[i] > maxRad)
+			maxRad = segments.rad[i];
+	}
+
+	/**
+	 * Pushes segment i out of all inserted segments it intersects
+	 */
+	public void collide(SegmentStore segments, int i) {
+		double sx[] = segments.x, sy[] = segments.y;
+		double x0 = sx[i], y0 = sy[i];
+		double reach = segments.rad[i] + maxRad + margin;
+		int count = 0;
+		int cx0 = (int) Math.floor((x0 - reach) / cellSize), cx1 = (int) Math.floor((x0 + reach) / cellSize);
+		int cy0 = (int) Math.floor((y0 - reach) / cellSize), cy1 = (int) Math.floor((y0 + reach) / cellSize);
+		for (int cy = cy0; cy <= cy1; cy++) {
+			for (int cx = cx0; cx <= cx1; cx++) {
+				for (int j = tableHead[bucket(cx, cy)]; j >= 0; j = next[j]) {
+					if ((sx[j] - x0) * (sx[j] - x0) + (sy[j] - y0) * (sy[j] - y0) >= reach * reach)
+						continue;
+					if (count == candidates.length) {
+						int grown[] = new int[count * 2];
+						System.arraycopy(candidates, 0, grown, 0, count);
+						candidates = grown;
+					}
+					candidates[count++] = j;
+				}
+			}
+		}
+		// hash collisions can list a segment twice, skip duplicates after sorting
+		sort(candidates, count);
+		int last = -1;
+		for (int k = 0; k < count; k++) {
+			if (candidates[k] == last)
+				continue;
+			last = candidates[k];
+			segments.collideStatic(i, last);
+			if ((sx[i] - x0) * (sx[i] - x0) + (sy[i] - y0) * (sy[i] - y0) > margin * margin) {
+				// moved out of the searched area, redo exactly
+				fallbacks++;
+				sx[i] = x0;
+				sy[i] = y0;
+				for (int j = 0; j < i; j++) {
+					segments.collideStatic(i, j);
+				}
+				return;
+			}
+		}
+	}
+
+	/**
+	 * insertion sort, the candidate lists are short
+	 */
+	private static void sort(int a[], int n) {
+		for (int k = 1; k < n; k++) {
+			int v = a[k];
+			int m = k - 1;
+			while (m >= 0 && a[m] > v) {
+				a[m + 1] = a[m];
+				m--;
+			}
+			a[m + 1] = v;
+		}
+	}
+}
@@ -6,10 +6,10 @@ import helpers.DoubleMath;
 import java.awt.Color;
 import java.awt.Graphics;
 import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.Random;
 
+import neuralNetwork.Inference;
 import neuralNetwork.NeuralNet;
 import neuralNetwork.Stage;
 
@@ -38,7 +38,7 @@ public class Snake implements Comparable {
 	public final boolean snakeInertia = false;
 
 	// basic snake attributes:
-	public ArrayList<PhysicalCircle> snakeSegments = new ArrayList<PhysicalCircle>(100);
+	public SegmentStore snakeSegments = new SegmentStore(100);
 	public DNA dna;
 	public NeuralNet brainNet;
 	public double age = 0;
@@ -53,6 +53,19 @@ public class Snake implements Comparable {
 	public boolean manual = false; //is player-controlled
 	public boolean ruled = false;
 	
+	// sensors, buffers are reused so a tick allocates nothing:
+	private Vision vision = new Vision(fieldOfView, FOVDIVISIONS, maximumSightDistance);
+	private Thing input[] = new Thing[FOVDIVISIONS * 2];
+	private double stageA[] = new double[FIRSTSTAGESIZE];
+	// nonzero entries of stageA, each visual cell sets at most one:
+	private int inputIndex[] = new int[FOVDIVISIONS * 2];
+	private double inputValue[] = new double[FOVDIVISIONS * 2];
+	private int inputCount = 0;
+	private ArrayList<PhysicalCircle> nibblesToRemove = new ArrayList<PhysicalCircle>(4);
+	private ArrayList<PhysicalCircle> nibblesInReach = new ArrayList<PhysicalCircle>(4);
+	private SelfCollider selfCollider = new SelfCollider(2 * World.globalCircleRadius);
+	private double ruleOutput[] = new double[2];
+
 	public Thing[] debugInputArray = null;
 	public String debugOutput = "";
 
@@ -66,30 +79,66 @@ public class Snake implements Comparable {
 	 */
 
 	public Snake(DNA dna, World world) {
-		double x = Math.random() * (world.width - 2 * wallCollisionThreshold - 2 * GameLoop.globalCircleRadius) + wallCollisionThreshold
-				+ GameLoop.globalCircleRadius;
-		double y = Math.random() * (world.height - 2 * wallCollisionThreshold - 2 * GameLoop.globalCircleRadius) + wallCollisionThreshold
-				+ GameLoop.globalCircleRadius;
+		this(dna, world, Inference.EXACT);
+	}
+
+	/**
+	 * Same like Snake(dna, world), with a brain calculating in the given
+	 * mode. With an incrementalThreshold the brain only follows changes of
+	 * the vision larger than it, see NeuralNet.calcIncremental()
+	 * 
+	 * @param inference
+	 *            mode of the neural net
+	 */
+	public Snake(DNA dna, World world, Inference inference) {
+		for (int i = 0; i < input.length; i++)
+			input[i] = new Thing();
+		brainNet = new NeuralNet(stageSizes, inference);
+		reset(dna, world);
+	}
+
+	/**
+	 * Brings the snake back as a newborn with the given DNA, e.g. a dead one
+	 * from a pool. Network, segment storage and buffers are kept.
+	 * 
+	 * @param dna
+	 *            if null, it generates a random new DNA
+	 * @param world
+	 *            reference to the world for spawn point
+	 */
+	public void reset(DNA dna, World world) {
+		double x = world.random.nextDouble() * (world.width - 2 * wallCollisionThreshold - 2 * World.globalCircleRadius) + wallCollisionThreshold
+				+ World.globalCircleRadius;
+		double y = world.random.nextDouble() * (world.height - 2 * wallCollisionThreshold - 2 * World.globalCircleRadius) + wallCollisionThreshold
+				+ World.globalCircleRadius;
 
-		int dnalength = NeuralNet.calcNumberOfCoeffs(stageSizes, isNNSymmetric) + 1;
 		if (dna == null) {
-			this.dna = new DNA(true, dnalength);
+			this.dna = new DNA(true, dnaLength());
 		} else {
 			this.dna = dna;
 		}
 		snakeSegments.clear();
-		for (int i = 0; i < 1; i++) {
-			snakeSegments.add(new PhysicalCircle(x, y, GameLoop.globalCircleRadius));
-		}
+		snakeSegments.add(x, y, World.globalCircleRadius);
 		this.angle = Math.atan2(world.height / 2 - y, world.width / 2 - x);
 		// setup brain:
-		brainNet = new NeuralNet(stageSizes);
 		reloadFromDNA();
 		score = 0;
 		deathFade = 180;
 		isDead = false;
 		health = healthbonus * 3 / 2;
 		age = 0;
+		dir = 0;
+		manual = false;
+		ruled = false;
+		debugInputArray = null;
+		debugOutput = "";
+	}
+
+	/**
+	 * @return length of the DNA needed for the network coefficients and the color
+	 */
+	public static int dnaLength() {
+		return NeuralNet.calcNumberOfCoeffs(stageSizes, isNNSymmetric) + 1;
 	}
 
 	/**
@@ -99,7 +148,7 @@ public class Snake implements Comparable {
 		if (isNNSymmetric)
 			brainNet.loadCoeffsSymmetrical(this.dna.data);
 		else
-			brainNet.loadCoeffs(this.dna.data);
+			brainNet.bindCoeffs(this.dna.data);
 		this.hue = (float) this.dna.data[this.dna.data.length - 1] / 256f;
 	}
 
@@ -115,68 +164,74 @@ public class Snake implements Comparable {
 			deathFade -= .6;
 			return true;
 		}
-		age += .1;
-		
-		double slowdown = 49d / (48d + snakeSegments.size());
-		PhysicalCircle head = snakeSegments.get(0);
 		// calculate neural net
 		double angleIncrement;
 		if(manual)
 			angleIncrement = dir;
 		else
 			angleIncrement = brain(world);
+		return update(world, angleIncrement);
+	}
+
+	/**
+	 * Same like update(World), but with the steering already decided, e.g.
+	 * by a BatchNet for many snakes at once
+	 * 
+	 * @param world
+	 *            reference to the world
+	 * @param angleIncrement
+	 *            angle increment to move, see steer()
+	 * @return true when snake died that round.
+	 */
+	public boolean update(World world, double angleIncrement) {
+		if (isDead) {
+			deathFade -= .6;
+			return true;
+		}
+		age += .1;
+		
+		double slowdown = 49d / (48d + snakeSegments.size);
+		SegmentStore body = snakeSegments; // index 0 is the head
 
 		angle += slowdown * angleIncrement;
 		angle = DoubleMath.doubleModulo(angle, Math.PI * 2);
 
 		// collision with wall:
-		if (head.x - head.rad < wallCollisionThreshold) {
+		if (body.x[0] - body.rad[0] < wallCollisionThreshold) {
 			score /= 2;
 			isDead = true;
 		}
-		if (head.x + head.rad > world.width - wallCollisionThreshold) {
+		if (body.x[0] + body.rad[0] > world.width - wallCollisionThreshold) {
 			score /= 2;
 			isDead = true;
 		}
-		if (head.y - head.rad < wallCollisionThreshold) {
+		if (body.y[0] - body.rad[0] < wallCollisionThreshold) {
 			score /= 2;
 			isDead = true;
 		}
-		if (head.y + head.rad > world.height - wallCollisionThreshold) {
+		if (body.y[0] + body.rad[0] > world.height - wallCollisionThreshold) {
 			score /= 2;
 			isDead = true;
 		}
 		// Main movement:
-		head.vx = maximumForwardSpeed * slowdown * Math.cos(angle);
-		head.vy = maximumForwardSpeed * slowdown * Math.sin(angle);
-
-		PhysicalCircle previous = head;
-		for (int i = 0; i < snakeSegments.size(); i++) {
-			PhysicalCircle c = snakeSegments.get(i);
-			if (snakeInertia){
-				c.followBouncy(previous);
-			} else {
-				c.followStatic(previous);
-			}
-			
-			c.updatePosition();
-			for (int j = 0; j < i; j++) {
-				c.collideStatic(snakeSegments.get(j));
-			}
-			previous = c;
-			if (i > 1 && head.isColliding(c, 0)) {
-				isDead = true;
-				score /= 2;
-				break;
-			}
+		body.vx[0] = maximumForwardSpeed * slowdown * Math.cos(angle);
+		body.vy[0] = maximumForwardSpeed * slowdown * Math.sin(angle);
+
+		// move the body, long snakes only test nearby segments for collisions
+		if (selfCollider.move(body, snakeInertia)) {
+			isDead = true;
+			score /= 2;
 		}
 		// Check eaten nibbles:
-		LinkedList<PhysicalCircle> nibblesToRemove = new LinkedList<PhysicalCircle>();
+		nibblesToRemove.clear();
 		int nibbleEatCount = 0;
-		for (PhysicalCircle nibble : world.getNibbles()) {
-			if (head.isColliding(nibble, -10)) {
+		// only nibbles whose centers can be close enough
+		ArrayList<PhysicalCircle> nibbles = world.getNibblesInReach(body.x[0], body.y[0], body.rad[0] + World.globalCircleRadius, nibblesInReach);
+		for (int n = 0; n < nibbles.size(); n++) {
+			PhysicalCircle nibble = nibbles.get(n);
+			if (body.isColliding(0, nibble, -10)) {
 				score += world.calcValue(nibble);
-				snakeSegments.add(new PhysicalCircle(snakeSegments.get(snakeSegments.size() - 1).x, snakeSegments.get(snakeSegments.size() - 1).y, nibble.rad));
+				body.add(body.x[body.size - 1], body.y[body.size - 1], nibble.rad);
 				nibblesToRemove.add(nibble);
 				nibbleEatCount++;
 			}
@@ -226,35 +281,40 @@ public class Snake implements Comparable {
 	 * @return angle increment to move
 	 */
 	public double brain(World world) {
-		// init input vector:
-		Thing input[] = new Thing[FOVDIVISIONS * 2];
-		for (int i = 0; i < FOVDIVISIONS * 2; i++)
-			input[i] = new Thing();
-		// nibbles:
-		input = updateVisualInput(input, world.getNibbles(), 2);
-		// snake:
-		input = updateVisualInput(input, snakeSegments, 1);
-		// walls:
-		/*
-		 * (This should be replaced by a better algorithm) It is basically a
-		 * brute force attempt converting the continuous border lines into many
-		 * PhysicalCirle objects to apply the same algorithm When someone comes
-		 * up with a better algorithm, please let me know :)
-		 */
-		int step = (int) (maximumSightDistance * Math.sin(fieldOfView / (FOVDIVISIONS * 1d))) / 20;
-		LinkedList<PhysicalCircle> walls = new LinkedList<PhysicalCircle>();
-		for (int x = 0; x < world.width; x += step) {
-			walls.add(new PhysicalCircle(x, 0, 1));
-			walls.add(new PhysicalCircle(x, world.height, 1));
+		sense(world);
+		double output[];
+		if(ruled) {
+			output = ruleBasedBrain(input);
+//			//Random movement
+//			Random rand = new Random();
+//			double z = rand.nextInt(100);
+//			double o = rand.nextInt(80);
+//			output = new double[] {z, o};
 		}
-		for (int y = 0; y < world.height; y += step) {
-			walls.add(new PhysicalCircle(0, y, 1));
-			walls.add(new PhysicalCircle(world.width, y, 1));
+		else if (brainNet.inference.incrementalThreshold >= 0)
+			output = brainNet.calcIncremental(stageA, brainNet.inference.incrementalThreshold);
+		else
+			output = brainNet.calcSparse(inputIndex, inputValue, inputCount);
+		return steer(output[0], output[1]);
+	}
+
+	/**
+	 * Looks around and converts what the snake sees into the input vector
+	 * of the neural net
+	 * 
+	 * @param world
+	 *            reference to the world for environment information
+	 * @return input vector, reused by the next call
+	 */
+	public double[] sense(World world) {
+		vision.look(world, snakeSegments, angle);
+		for (int i = 0; i < FOVDIVISIONS * 2; i++) {
+			input[i].distance = vision.distance[i];
+			input[i].type = vision.type[i];
 		}
-		input = updateVisualInput(input, walls, 0);
 
 		// convert to input vector for neural net
-		double stageA[] = new double[FIRSTSTAGESIZE]; // zeros initialized ;)
+		Arrays.fill(stageA, 0);
 		if (isNNSymmetric) {
 			for (int i = 0; i < FOVDIVISIONS; i++) {
 				stageA[input[i].type * FOVDIVISIONS + i] = Stage.signalMultiplier * (maximumSightDistance - input[i].distance) / maximumSightDistance;
@@ -268,18 +328,27 @@ public class Snake implements Comparable {
 						* (maximumSightDistance - input[i + FOVDIVISIONS].distance) / maximumSightDistance;
 			}
 		}
-		double output[];
-		if(ruled) {
-			output = ruleBasedBrain(input);
-//			//Random movement
-//			Random rand = new Random();
-//			double z = rand.nextInt(100);
-//			double o = rand.nextInt(80);
-//			output = new double[] {z, o};
+		inputCount = 0;
+		for (int i = 0; i < FIRSTSTAGESIZE; i++) {
+			if (stageA[i] != 0) {
+				inputIndex[inputCount] = i;
+				inputValue[inputCount++] = stageA[i];
+			}
 		}
-		else
-			output = brainNet.calc(stageA);
-		double delta = output[0] - output[1];
+		return stageA;
+	}
+
+	/**
+	 * Converts the two outputs of the neural net into a limited angle increment
+	 * 
+	 * @param left
+	 *            first output
+	 * @param right
+	 *            second output
+	 * @return angle increment to move
+	 */
+	public double steer(double left, double right) {
+		double delta = left - right;
 		double angleIncrement = 10 * maximumAngularSpeed / Stage.signalMultiplier * delta;
 		if (angleIncrement > maximumAngularSpeed)
 			angleIncrement = maximumAngularSpeed;
@@ -325,7 +394,9 @@ public class Snake implements Comparable {
 		
 		if(foodDist < dangerDist ){
 			debugOutput = "moving towards FOOD via "+foodAngle;
-			return new double[] {foodAngle, 0};
+			ruleOutput[0] = foodAngle;
+			ruleOutput[1] = 0;
+			return ruleOutput;
 		}
 		else {
 			//always move opposite from self
@@ -334,44 +405,10 @@ public class Snake implements Comparable {
 				debugOutput = "moving from DANGER (self) via "+safestAngle;
 			}
 			else debugOutput = "moving from DANGER via "+safestAngle;
-			return new double[] {safestAngle, 0};
-		}
-	}
-
-	/**
-	 * Function to update input vector Input Vector contains distance and type
-	 * of closest objects seen by each visual cell This function replaces those
-	 * by "Things" closer to the head of the snake Objects further away or
-	 * outside the FOV are ignored
-	 * 
-	 * @param input
-	 *            Array of the current things seen by the snake
-	 * @param objects
-	 *            List of objects to be checked
-	 * @param type
-	 *            Thing-Type: 0: Wall, 1: Snake, 2: Nibble
-	 * @return Updated input array
-	 */
-	private Thing[] updateVisualInput(Thing input[], List<PhysicalCircle> objects, int type) {
-		PhysicalCircle head = snakeSegments.get(0);
-		for (PhysicalCircle n : objects) {
-			if (head == n)
-				continue;
-			double a = DoubleMath.signedDoubleModulo(head.getAngleTo(n) - angle, Math.PI * 2);
-			double d = head.getDistanceTo(n);
-			if (a >= 0 && a < fieldOfView) {
-				if (d < input[(int) (a * FOVDIVISIONS / fieldOfView)].distance) {
-					input[(int) (a * FOVDIVISIONS / fieldOfView)].distance = d;
-					input[(int) (a * FOVDIVISIONS / fieldOfView)].type = type;
-				}
-			} else if (a <= 0 && -a < fieldOfView) {
-				if (d < input[(int) (-a * FOVDIVISIONS / fieldOfView) + FOVDIVISIONS].distance) {
-					input[(int) (-a * FOVDIVISIONS / fieldOfView) + FOVDIVISIONS].distance = d;
-					input[(int) (-a * FOVDIVISIONS / fieldOfView) + FOVDIVISIONS].type = type;
-				}
-			}
+			ruleOutput[0] = safestAngle;
+			ruleOutput[1] = 0;
+			return ruleOutput;
 		}
-		return input;
 	}
 
 	/**
@@ -383,28 +420,30 @@ public class Snake implements Comparable {
 	public void draw(Graphics g) {
 		// Snake body
 		int alpha = (int) deathFade;
-		for (int i = 0; i < snakeSegments.size(); i++) {
-			Color c = new Color(Color.HSBtoRGB(hue, 1 - (float) i / ((float) snakeSegments.size() + 1f), 1));
+		for (int i = 0; i < snakeSegments.size; i++) {
+			Color c = new Color(Color.HSBtoRGB(hue, 1 - (float) i / ((float) snakeSegments.size + 1f), 1));
 			g.setColor(new Color(c.getRed(), c.getGreen(), c.getBlue(), alpha));
-			PhysicalCircle p = snakeSegments.get(i);
-			g.fillOval((int) (p.x - p.rad), (int) (p.y - p.rad), (int) (2 * p.rad + 1), (int) (2 * p.rad + 1));
+			double x = snakeSegments.x[i], y = snakeSegments.y[i], rad = snakeSegments.rad[i];
+			g.fillOval((int) (x - rad), (int) (y - rad), (int) (2 * rad + 1), (int) (2 * rad + 1));
 		}
 		// Cute Eyes. A bit computationally expensive, so can be turned of
 		if (displayCuteEyes || this.manual || this.ruled) {
 
-			PhysicalCircle p = snakeSegments.get(0); // get head
-			double dist = p.rad / 2.3;
-			double size = p.rad / 3.5;
+			// head:
+			double px = snakeSegments.x[0], py = snakeSegments.y[0], prad = snakeSegments.rad[0];
+			double pvx = snakeSegments.vx[0], pvy = snakeSegments.vy[0], pv = snakeSegments.getAbsoluteVelocity(0);
+			double dist = prad / 2.3;
+			double size = prad / 3.5;
 			g.setColor(new Color(255, 255, 255, alpha));
-			g.fillOval((int) (p.x + p.vy * dist / p.getAbsoluteVelocity() - size), (int) (p.y - p.vx * dist / p.getAbsoluteVelocity() - size),
+			g.fillOval((int) (px + pvy * dist / pv - size), (int) (py - pvx * dist / pv - size),
 					(int) (size * 2 + 1), (int) (size * 2 + 1));
-			g.fillOval((int) (p.x - p.vy * dist / p.getAbsoluteVelocity() - size), (int) (p.y + p.vx * dist / p.getAbsoluteVelocity() - size),
+			g.fillOval((int) (px - pvy * dist / pv - size), (int) (py + pvx * dist / pv - size),
 					(int) (size * 2 + 1), (int) (size * 2 + 1));
-			size = p.rad / 6;
+			size = prad / 6;
 			g.setColor(new Color(0, 0, 0, alpha));
-			g.fillOval((int) (p.x + p.vy * dist / p.getAbsoluteVelocity() - size), (int) (p.y - p.vx * dist / p.getAbsoluteVelocity() - size),
+			g.fillOval((int) (px + pvy * dist / pv - size), (int) (py - pvx * dist / pv - size),
 					(int) (size * 2 + 1), (int) (size * 2 + 1));
-			g.fillOval((int) (p.x - p.vy * dist / p.getAbsoluteVelocity() - size), (int) (p.y + p.vx * dist / p.getAbsoluteVelocity() - size),
+			g.fillOval((int) (px - pvy * dist / pv - size), (int) (py + pvx * dist / pv - size),
 					(int) (size * 2 + 1), (int) (size * 2 + 1));
 		}
 	}
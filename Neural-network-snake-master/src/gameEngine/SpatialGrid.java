@@ -0,0 +1,195 @@
+package gameEngine;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class SpatialGrid {
+	/**
+	 * Uniform grid over a set of circles, bucketed by their centers.
+	 * It is rebuilt from a list or a SegmentStore with a counting sort, so
+	 * afterwards the positions and radii of a cell are stored contiguously in
+	 * x[], y[], rad[], and index[] tells where each entry came from.
+	 * Arrays only grow, a rebuild of an equally sized set allocates nothing.
+	 * Objects outside the grid area are put into the nearest border cell.
+	 */
+	public double cellSize = 1;
+	public int cols = 0, rows = 0;
+	public double minCellSize; // lower limit when the size is chosen automatically
+
+	// entries in cell order:
+	public double x[] = new double[0];
+	public double y[] = new double[0];
+	public double rad[] = new double[0];
+	public int index[] = new int[0]; // index in the source list / store
+
+	private int cellStart[] = new int[1]; // entries of cell c: cellStart[c] .. cellStart[c+1]-1
+	private int cellOf[] = new int[0];
+	private double inX[] = new double[0], inY[] = new double[0], inRad[] = new double[0];
+	private int result[] = new int[8];
+	private int size = 0;
+
+	/**
+	 * C'tor
+	 *
+	 * @param minCellSize	smallest cell size, e.g. the diameter of the objects
+	 */
+	public SpatialGrid(double minCellSize) {
+		this.minCellSize = minCellSize;
+	}
+
+	/**
+	 * Rebuilds the grid from the given objects. The cell size is chosen so
+	 * that there is roughly one object per cell, but not below minCellSize.
+	 *
+	 * @param objects	objects to insert
+	 * @param width		width of the covered area
+	 * @param height	height of the covered area
+	 */
+	public void build(List<PhysicalCircle> objects, double width, double height) {
+		ensureCapacity(objects.size());
+		for (int i = 0; i < objects.size(); i++) {
+			PhysicalCircle p = objects.get(i);
+			inX[i] = p.x;
+			inY[i] = p.y;
+			inRad[i] = p.rad;
+		}
+		sort(objects.size(), width, height);
+	}
+
+	/**
+	 * Same like build() for a list, with the segments of a snake
+	 */
+	public void build(SegmentStore segments, double width, double height) {
+		ensureCapacity(segments.size);
+		System.arraycopy(segments.x, 0, inX, 0, segments.size);
+		System.arraycopy(segments.y, 0, inY, 0, segments.size);
+		System.arraycopy(segments.rad, 0, inRad, 0, segments.size);
+		sort(segments.size, width, height);
+	}
+
+	private void ensureCapacity(int n) {
+		if (inX.length < n) {
+			int capacity = n + n / 2;
+			inX = new double[capacity];
+			inY = new double[capacity];
+			inRad = new double[capacity];
+			x = new double[capacity];
+			y = new double[capacity];
+			rad = new double[capacity];
+			index = new int[capacity];
+			cellOf = new int[capacity];
+		}
+	}
+
+	/**
+	 * counting sort of the input arrays into cell order
+	 */
+	private void sort(int n, double width, double height) {
+		size = n;
+		width = Math.max(width, 1);
+		height = Math.max(height, 1);
+		cellSize = Math.max(minCellSize, Math.sqrt(width * height / Math.max(size, 1)));
+		cols = (int) (width / cellSize) + 1;
+		rows = (int) (height / cellSize) + 1;
+		int cells = cols * rows;
+		if (cellStart.length < cells + 1)
+			cellStart = new int[cells + 1];
+		for (int c = 0; c <= cells; c++)
+			cellStart[c] = 0;
+		// count, prefix sum, then place:
+		for (int i = 0; i < size; i++) {
+			int c = cellY(inY[i]) * cols + cellX(inX[i]);
+			cellOf[i] = c;
+			cellStart[c + 1]++;
+		}
+		for (int c = 0; c < cells; c++)
+			cellStart[c + 1] += cellStart[c];
+		for (int i = 0; i < size; i++) {
+			// cellStart[c] is used as insert position and restored below
+			int k = cellStart[cellOf[i]]++;
+			x[k] = inX[i];
+			y[k] = inY[i];
+			rad[k] = inRad[i];
+			index[k] = i;
+		}
+		for (int c = cells; c > 0; c--)
+			cellStart[c] = cellStart[c - 1];
+		cellStart[0] = 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int cellX(double x) {
+		int cx = (int) (x / cellSize);
+		return cx < 0 ? 0 : (cx >= cols ? cols - 1 : cx);
+	}
+
+	public int cellY(double y) {
+		int cy = (int) (y / cellSize);
+		return cy < 0 ? 0 : (cy >= rows ? rows - 1 : cy);
+	}
+
+	/**
+	 * @return position of the first entry of cell (cx, cy) in x[], y[], rad[], index[]
+	 */
+	public int cellStart(int cx, int cy) {
+		return cellStart[cy * cols + cx];
+	}
+
+	/**
+	 * @return position after the last entry of cell (cx, cy)
+	 */
+	public int cellEnd(int cx, int cy) {
+		return cellStart[cy * cols + cx + 1];
+	}
+
+	/**
+	 * Lower bound for the distance between a point in some cell and any
+	 * object in a cell of Chebyshev ring r around it
+	 */
+	public double ringDistance(int r) {
+		return r > 0 ? (r - 1) * cellSize : 0;
+	}
+
+	/**
+	 * @return ring index from which on all rings lie outside the grid
+	 */
+	public int maxRing(int cx, int cy) {
+		return Math.max(Math.max(cx, cols - 1 - cx), Math.max(cy, rows - 1 - cy)) + 1;
+	}
+
+	/**
+	 * Finds all objects whose centers are closer than r to (x, y)
+	 *
+	 * @param x		x position
+	 * @param y		y position
+	 * @param r		radius
+	 * @return		number of objects found, get them with result()
+	 */
+	public int queryRadius(double x, double y, double r) {
+		int count = 0;
+		int x0 = cellX(x - r), x1 = cellX(x + r);
+		int y0 = cellY(y - r), y1 = cellY(y + r);
+		for (int cy = y0; cy <= y1; cy++) {
+			int end = cellEnd(x1, cy);
+			// cells of one row are contiguous
+			for (int k = cellStart(x0, cy); k < end; k++) {
+				if ((this.x[k] - x) * (this.x[k] - x) + (this.y[k] - y) * (this.y[k] - y) < r * r) {
+					if (count == result.length)
+						result = Arrays.copyOf(result, count * 2);
+					result[count++] = index[k];
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return source index of the i-th object found by the last queryRadius()
+	 */
+	public int result(int i) {
+		return result[i];
+	}
+}
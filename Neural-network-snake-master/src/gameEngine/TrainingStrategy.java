@@ -0,0 +1,39 @@
+package gameEngine;
+
+/**
+ * Simulation and breeding logic of one training method (GA, ES, SARSA).
+ * It knows nothing about windows or painting, so the same strategy runs
+ * inside a Swing component or headless in the HeadlessEngine.
+ */
+public interface TrainingStrategy {
+
+	/**
+	 * Advances the world and all snakes by one update period and replaces
+	 * dead snakes. Initializes the first generation if there are no snakes yet.
+	 * Generational strategies may evaluate a whole generation in one tick.
+	 *
+	 * @param world
+	 *            reference to the world, its size has to be set before
+	 */
+	public void tick(World world);
+
+	/**
+	 * @return number of completed generations
+	 */
+	public int getGeneration();
+
+	/**
+	 * @return maximum fitness since the statistics were last reset
+	 */
+	public double getCurrentMaxFitness();
+
+	/**
+	 * @return best fitness ever reached
+	 */
+	public double getBestScore();
+
+	/**
+	 * Resets the current maximum fitness, used for statistics timelines
+	 */
+	public void resetCurrentMaxFitness();
+}
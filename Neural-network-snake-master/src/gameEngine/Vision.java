@@ -0,0 +1,152 @@
+package gameEngine;
+
+import helpers.DoubleMath;
+
+import java.util.ArrayList;
+
+public class Vision {
+	/**
+	 * What the visual cells of a snake see: distance and type of the closest
+	 * nibble, segment of its own body or wall in each cell. Cells are ordered
+	 * like WallSensor's: 0..divisions-1 at positive angles from the heading,
+	 * divisions..2*divisions-1 at negative angles.
+	 * Angle and distance of an object are measured like
+	 * PhysicalCircle.getAngleTo() and getDistanceTo() from the head. Nibbles
+	 * and the body are searched through spatial grids ring by ring around the
+	 * head once there are enough of them, which sees the same as scanning
+	 * them all. Buffers are reused, a look allocates nothing.
+	 */
+	// types of things seen:
+	public static final int WALL = 0, SNAKE = 1, NIBBLE = 2;
+
+	public final int divisions; // cells per side
+	public final double fieldOfView;
+	public final double maximumSightDistance;
+	// result of the last look(), per cell:
+	public final double distance[];
+	public final int type[];
+
+	private WallSensor wallSensor;
+	private double wallDistances[];
+	private SpatialGrid segmentGrid = new SpatialGrid(2 * World.globalCircleRadius);
+	// the viewer during a look():
+	private double hx, hy, hrad, angle;
+
+	/**
+	 * C'tor
+	 *
+	 * @param fieldOfView			view angle on each side of the heading
+	 * @param divisions				number of visual cells on each side
+	 * @param maximumSightDistance	distance of a cell that sees nothing
+	 */
+	public Vision(double fieldOfView, int divisions, double maximumSightDistance) {
+		this.fieldOfView = fieldOfView;
+		this.divisions = divisions;
+		this.maximumSightDistance = maximumSightDistance;
+		distance = new double[2 * divisions];
+		type = new int[2 * divisions];
+		wallSensor = new WallSensor(fieldOfView, divisions);
+		wallDistances = new double[2 * divisions];
+	}
+
+	/**
+	 * Looks around from the head of a snake: nibbles, the snake's own body,
+	 * then the walls
+	 *
+	 * @param world	world with nibbles and walls
+	 * @param body	segments of the snake, index 0 is the head
+	 * @param angle	heading
+	 */
+	public void look(World world, SegmentStore body, double angle) {
+		hx = body.x[0];
+		hy = body.y[0];
+		hrad = body.rad[0];
+		this.angle = angle;
+		for (int i = 0; i < distance.length; i++) {
+			distance[i] = maximumSightDistance;
+			type[i] = WALL;
+		}
+		// nibbles:
+		if (world.usesNibbleGrid()) {
+			searchGrid(world.getNibbleGrid(), -1, NIBBLE);
+		} else {
+			ArrayList<PhysicalCircle> nibbles = world.getNibbles();
+			for (int k = 0; k < nibbles.size(); k++) {
+				PhysicalCircle n = nibbles.get(k);
+				see(n.x, n.y, n.rad, NIBBLE);
+			}
+		}
+		// own body, without the head:
+		if (World.spatialGrids && body.size >= World.GRIDTHRESHOLD) {
+			segmentGrid.build(body, world.width, world.height);
+			searchGrid(segmentGrid, 0, SNAKE);
+		} else {
+			for (int k = 1; k < body.size; k++)
+				see(body.x[k], body.y[k], body.rad[k], SNAKE);
+		}
+		// walls:
+		wallSensor.sense(hx, hy, angle, world.width, world.height, wallDistances);
+		for (int i = 0; i < distance.length; i++) {
+			// same offset as getDistanceTo() a wall point of radius 1
+			double d = wallDistances[i] - (hrad - 1) / 2;
+			if (d < distance[i]) {
+				distance[i] = d;
+				type[i] = WALL;
+			}
+		}
+	}
+
+	/**
+	 * Searches the grid ring by ring around the head
+	 *
+	 * @param skip	source index of an object to ignore, -1 for none
+	 */
+	private void searchGrid(SpatialGrid grid, int skip, int type) {
+		int cx = grid.cellX(hx);
+		int cy = grid.cellY(hy);
+		int maxRing = grid.maxRing(cx, cy);
+		for (int r = 0; r < maxRing; r++) {
+			// stop when nothing this far away can be closer than what each cell already sees
+			double farthest = 0;
+			for (int i = 0; i < distance.length; i++)
+				farthest = Math.max(farthest, distance[i]);
+			if (grid.ringDistance(r) - hrad / 2 >= farthest)
+				break;
+			for (int gy = cy - r; gy <= cy + r; gy++) {
+				if (gy < 0 || gy >= grid.rows)
+					continue;
+				// whole row at the top and bottom of the ring, only both ends in between
+				int step = (gy == cy - r || gy == cy + r) ? 1 : 2 * r;
+				for (int gx = cx - r; gx <= cx + r; gx += step) {
+					if (gx < 0 || gx >= grid.cols)
+						continue;
+					int end = grid.cellEnd(gx, gy);
+					for (int k = grid.cellStart(gx, gy); k < end; k++) {
+						if (grid.index[k] != skip)
+							see(grid.x[k], grid.y[k], grid.rad[k], type);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Replaces what the visual cell in which the object lies sees, if the
+	 * object is closer
+	 */
+	private void see(double ox, double oy, double orad, int type) {
+		double a = DoubleMath.signedDoubleModulo(Math.atan2(oy - hy, ox - hx) - angle, Math.PI * 2);
+		double d = Math.sqrt((hx - ox) * (hx - ox) + (hy - oy) * (hy - oy)) - (hrad - orad) / 2;
+		int cell;
+		if (a >= 0 && a < fieldOfView)
+			cell = (int) (a * divisions / fieldOfView);
+		else if (a <= 0 && -a < fieldOfView)
+			cell = (int) (-a * divisions / fieldOfView) + divisions;
+		else
+			return;
+		if (d < distance[cell]) {
+			distance[cell] = d;
+			this.type[cell] = type;
+		}
+	}
+}
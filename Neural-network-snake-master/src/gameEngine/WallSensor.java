@@ -0,0 +1,92 @@
+package gameEngine;
+
+public class WallSensor {
+	/**
+	 * Exact distance to the walls for each visual cell of a snake.
+	 * A cell is the cone between two rays. The closest wall point inside the
+	 * cone is either the foot of the perpendicular onto a wall (when the wall
+	 * normal lies inside the cone) or where one of the two rays leaves the
+	 * box. Ray directions are obtained by rotating the heading with
+	 * precomputed sines and cosines, so a call needs no trigonometry.
+	 */
+	public final int divisions; // cells per side
+	private final double rotCos[], rotSin[]; // rotation of ray k relative to heading
+	private final double rayX[], rayY[], exit[]; // per ray buffers
+
+	/**
+	 * C'tor
+	 *
+	 * @param fieldOfView	view angle on each side of the heading
+	 * @param divisions		number of visual cells on each side
+	 */
+	public WallSensor(double fieldOfView, int divisions) {
+		this.divisions = divisions;
+		int rays = 2 * divisions + 1;
+		rotCos = new double[rays];
+		rotSin = new double[rays];
+		rayX = new double[rays];
+		rayY = new double[rays];
+		exit = new double[rays];
+		for (int k = -divisions; k <= divisions; k++) {
+			rotCos[k + divisions] = Math.cos(k * fieldOfView / divisions);
+			rotSin[k + divisions] = Math.sin(k * fieldOfView / divisions);
+		}
+	}
+
+	/**
+	 * Calculates the distance from a point inside the box [0,width]x[0,height]
+	 * to the closest wall seen by each visual cell. Cells are ordered like the
+	 * snakes' input arrays: 0..divisions-1 at positive angles from the heading,
+	 * divisions..2*divisions-1 at negative angles.
+	 *
+	 * @param x			x position of the viewer
+	 * @param y			y position of the viewer
+	 * @param angle		heading
+	 * @param width		world width
+	 * @param height	world height
+	 * @param distances	output, length 2*divisions
+	 */
+	public void sense(double x, double y, double angle, double width, double height, double distances[]) {
+		double ch = Math.cos(angle);
+		double sh = Math.sin(angle);
+		// distance at which each ray leaves the box:
+		for (int k = 0; k < exit.length; k++) {
+			double dx = ch * rotCos[k] - sh * rotSin[k];
+			double dy = sh * rotCos[k] + ch * rotSin[k];
+			rayX[k] = dx;
+			rayY[k] = dy;
+			double d = Double.POSITIVE_INFINITY;
+			if (dx > 0)
+				d = (width - x) / dx;
+			else if (dx < 0)
+				d = -x / dx;
+			if (dy > 0)
+				d = Math.min(d, (height - y) / dy);
+			else if (dy < 0)
+				d = Math.min(d, -y / dy);
+			exit[k] = d;
+		}
+		for (int i = 0; i < divisions; i++) {
+			distances[i] = cone(divisions + i, divisions + i + 1, x, y, width, height);
+			distances[i + divisions] = cone(divisions - i - 1, divisions - i, x, y, width, height);
+		}
+	}
+
+	/**
+	 * Closest wall distance inside the cone from ray k0 counterclockwise to ray k1
+	 */
+	private double cone(int k0, int k1, double x, double y, double width, double height) {
+		double d = Math.min(exit[k0], exit[k1]);
+		// wall normals (1,0), (-1,0), (0,1), (0,-1) inside the cone:
+		// cross(ray0, n) >= 0 and cross(n, ray1) >= 0
+		if (-rayY[k0] >= 0 && rayY[k1] >= 0)
+			d = Math.min(d, width - x);
+		if (rayY[k0] >= 0 && -rayY[k1] >= 0)
+			d = Math.min(d, x);
+		if (rayX[k0] >= 0 && -rayX[k1] >= 0)
+			d = Math.min(d, height - y);
+		if (-rayX[k0] >= 0 && rayX[k1] >= 0)
+			d = Math.min(d, y);
+		return d;
+	}
+}
@@ -1,21 +1,39 @@
 package gameEngine;
 
+import helpers.RandomStreams;
+
 import java.awt.Color;
 import java.awt.Graphics;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
 import java.util.concurrent.Semaphore;
 
 public class World {
 	/**
 	 * Struct to store state of the "world" Walls, nibbles and global time
 	 */
+	// simulated time per update, also the real time per update when paced:
+	public static final long UPDATEPERIOD = 8;
+	public static final int globalCircleRadius = 20;
+	// from this many segments on, a snake uses grids over its body instead of scanning it:
+	public static final int GRIDTHRESHOLD = 32;
+	// same for the nibbles, the grid only pays off from about 64 of them. The
+	// trainers keep 4 to 6 by default, it is used once their numNibbles is raised:
+	public static final int NIBBLEGRIDTHRESHOLD = 64;
+	public static boolean spatialGrids = true; // false: no grids at all, the snakes scan everything (see GridFitnessTest)
+
 	public int height, width;
 	public long clock;
 	public int maxNibbles = 20;
 	private Semaphore nibbleProtect = new Semaphore(1); // protect nibble list
 														// add/remove with
 														// semaphore
-	private LinkedList<PhysicalCircle> nibbles = new LinkedList<PhysicalCircle>();
+	private ArrayList<PhysicalCircle> nibbles = new ArrayList<PhysicalCircle>();
+	private SpatialGrid nibbleGrid = new SpatialGrid(2 * globalCircleRadius);
+	private boolean nibbleGridValid = false;
+	// own stream for everything placed at random in this world, split off the creating thread's:
+	public SplittableRandom random = RandomStreams.get().split();
 
 	public void newNibble(int n) {
 		try {
@@ -26,34 +44,96 @@ public class World {
 		for (int i = 0; i < n; i++) {
 			if (nibbles.size() >= maxNibbles)
 				break;
-			PhysicalCircle nibble = new PhysicalCircle(0, 0, GameLoop.globalCircleRadius);
-			nibble.x = Math.random() * (width - 2 * nibble.rad) + nibble.rad;
-			nibble.y = Math.random() * (height - 2 * nibble.rad) + nibble.rad;
+			PhysicalCircle nibble = new PhysicalCircle(0, 0, globalCircleRadius);
+			nibble.x = random.nextDouble() * (width - 2 * nibble.rad) + nibble.rad;
+			nibble.y = random.nextDouble() * (height - 2 * nibble.rad) + nibble.rad;
 
-			nibble.vx = 2 * (Math.random() - .5);
-			nibble.vy = 2 * (Math.random() - .5);
+			nibble.vx = 2 * (random.nextDouble() - .5);
+			nibble.vy = 2 * (random.nextDouble() - .5);
 			nibble.t = 0;
 			nibbles.add(nibble);
+			nibbleGridValid = false;
 		}
 		nibbleProtect.release();
 	}
 
-	public LinkedList<PhysicalCircle> getNibbles() {
+	public ArrayList<PhysicalCircle> getNibbles() {
 		return nibbles;
 	}
 
+	/**
+	 * @return true if the snakes find the nibbles through getNibbleGrid()
+	 */
+	public boolean usesNibbleGrid() {
+		return spatialGrids && nibbles.size() >= NIBBLEGRIDTHRESHOLD;
+	}
+
+	/**
+	 * Nibbles a snake's head can touch, through the nibble grid if it is
+	 * used, else all of them
+	 * 
+	 * @param x
+	 *            x position of the head
+	 * @param y
+	 *            y position of the head
+	 * @param reach
+	 *            distance the centers can have at most
+	 * @param buffer
+	 *            list to collect the nibbles in, reused by the caller
+	 * @return nibbles within reach, possibly more
+	 */
+	public ArrayList<PhysicalCircle> getNibblesInReach(double x, double y, double reach, ArrayList<PhysicalCircle> buffer) {
+		if (!usesNibbleGrid())
+			return nibbles;
+		buffer.clear();
+		SpatialGrid grid = getNibbleGrid();
+		int found = grid.queryRadius(x, y, reach);
+		for (int k = 0; k < found; k++)
+			buffer.add(nibbles.get(grid.result(k)));
+		return buffer;
+	}
+
+	/**
+	 * Spatial index of the nibbles, rebuilt when they moved or changed.
+	 * The snakes only use it from NIBBLEGRIDTHRESHOLD nibbles on
+	 * 
+	 * @return grid over the current nibble positions
+	 */
+	public SpatialGrid getNibbleGrid() {
+		if (!nibbleGridValid) {
+			nibbleGrid.build(nibbles, width, height);
+			nibbleGridValid = true;
+		}
+		return nibbleGrid;
+	}
+
 	public int calcValue(PhysicalCircle p) {
 		return (int) (5 + (8d * Math.min(Math.exp(-(double) (p.t - 800) / 2000d), 1)));
 	}
 
+	/**
+	 * Resizes the world (e.g. to the window size) and advances it by one step
+	 * 
+	 * @param w	new width
+	 * @param h	new height
+	 */
 	public void update(int w, int h) {
 		this.width = w;
 		this.height = h;
-		for (PhysicalCircle p : nibbles) {
+		update();
+	}
+
+	/**
+	 * Moves the nibbles and advances the clock by one step, keeping the current size
+	 */
+	public void update() {
+		for (int i = 0; i < nibbles.size(); i++) {
+			PhysicalCircle p = nibbles.get(i);
 			p.updatePosition();
-			p.collideWall(50, 50, w - 50, h - 50);
+			p.collideWall(50, 50, width - 50, height - 50);
 		}
-		clock += GameLoop.UPDATEPERIOD;
+		nibbleGridValid = false;
+		clock += UPDATEPERIOD;
 	}
 
 	public void draw(Graphics g) {
@@ -63,14 +143,15 @@ public class World {
 		}
 	}
 
-	public void removeNibbles(LinkedList<PhysicalCircle> rem) {
+	public void removeNibbles(List<PhysicalCircle> rem) {
 		try {
 			nibbleProtect.acquire();
 		} catch (InterruptedException e) {
 			e.printStackTrace();
 		}
-		for (PhysicalCircle p : rem) {
-			nibbles.remove(p);
+		for (int i = 0; i < rem.size(); i++) {
+			nibbles.remove(rem.get(i));
+			nibbleGridValid = false;
 		}
 		nibbleProtect.release();
 	}
@@ -82,6 +163,7 @@ public class World {
 			e.printStackTrace();
 		}
 		nibbles.clear();
+		nibbleGridValid = false;
 		nibbleProtect.release();
 		clock = 0;
 	}
@@ -1,33 +1,47 @@
 package genetics;
 
+import helpers.RandomStreams;
+
 import java.util.Arrays;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 public class DNA {
 	/**
 	 * Class to model DNA strands, mutation and crossover
 	 */
-	public Random random = new Random();
 	public byte data[];
+	// buffers of combine() while this is the child, kept so a reused DNA allocates nothing:
+	private int swaps[];
+	private long child[];
+	private long fromThis[];
 	
 	public DNA(boolean random, int size){
 		data = new byte[size];
 		
-		for (int i = 0; i < data.length; i++){
-			data[i] = random?(byte)Math.floor(Math.random()*256d):0;
+		if (random){
+			RandomStreams.get().nextBytes(data);
 		}
 	}
+	/**
+	 * @return new DNA with the same data
+	 */
+	public DNA copy(){
+		DNA c = new DNA(false, data.length);
+		System.arraycopy(data, 0, c.data, 0, data.length);
+		return c;
+	}
 	/**
 	 * Crossover function which combines this DNA with another DNA object.
 	 * Process is done byte-wise and a gaussian noise is added to each byte-value 
 	 * Bits flip according to mutation probability
 	 */
 	public DNA crossoverNoise(DNA other, double mutationprob){  //byte-wise, noise applied to each value
+		SplittableRandom random = RandomStreams.get();
 		DNA newdna = new DNA(false, data.length);
 		int numswaps = data.length/10; 
 		int swaps[] = new int[numswaps+1];
 		for (int i = 0; i < swaps.length-1; i++){
-			swaps[i] = (int)Math.floor(Math.random()*data.length);
+			swaps[i] = random.nextInt(data.length);
 		}
 		swaps[numswaps] = data.length;  //save last
 		Arrays.sort(swaps);
@@ -45,7 +59,7 @@ public class DNA {
 			else {
 				d = other.data[i];
 			}
-			d += (byte)(random.nextGaussian()*mutationprob*256);
+			d += (byte)(RandomStreams.nextGaussian(random)*mutationprob*256);
 			newdna.data[i] = d;
 		}
 		return newdna;
@@ -54,8 +68,9 @@ public class DNA {
 	 * Gaussian mutation function
 	 */
 	public void mutateNoise(double prob, double mag){
+		SplittableRandom random = RandomStreams.get();
 		for (int i = 0; i < data.length; i++){
-			if (Math.random() < prob) data[i] += (byte)(random.nextGaussian()*mag*256);
+			if (random.nextDouble() < prob) data[i] += (byte)(RandomStreams.nextGaussian(random)*mag*256);
 		}
 	}
 	/**
@@ -64,32 +79,23 @@ public class DNA {
 	 * Bits flip according to mutation probability
 	 */
 	public DNA crossover(DNA other, double mutationprob){
-		DNA newdna = new DNA(false, data.length);
-		int numswaps = data.length/8; 
-		int swaps[] = new int[numswaps+1];
-		for (int i = 0; i < swaps.length-1; i++){
-			swaps[i] = (int)Math.floor(Math.random()*8*data.length);
+		return crossover(other, mutationprob, null);
+	}
+	/**
+	 * Same like crossover(), the child is written into target
+	 *
+	 * @param target	DNA of the same length to overwrite, e.g. of a dead snake; null for a new one
+	 * @return			target
+	 */
+	public DNA crossover(DNA other, double mutationprob, DNA target){
+		SplittableRandom random = RandomStreams.get();
+		target = prepareChild(target);
+		int swaps[] = target.swaps;
+		for (int i = 0; i < swaps.length; i++){
+			swaps[i] = random.nextInt(8*data.length);
 		}
-		swaps[numswaps] = 8*data.length;  //save last
 		Arrays.sort(swaps);
-		int swapidx = 0;
-		boolean that = true;
-		for (int i = 0; i < 8*data.length; i++){
-			if (i >= swaps[swapidx]){
-				swapidx++;
-				that = !that;
-			}
-			int bit = 0;
-			if (that){
-				bit = ((this.data[i/8] >> (i%8)) & 1);
-			}
-			else {
-				bit = ((other.data[i/8] >> (i%8)) & 1);
-			}
-			if (Math.random() < mutationprob) bit = 1-bit;
-			newdna.data[i/8] |= (bit << (i%8));
-		}
-		return newdna;
+		return combine(other, mutationprob, target);
 	}
 	/**
 	 * Crossover function which combines this DNA with another DNA object.
@@ -97,31 +103,111 @@ public class DNA {
 	 * Bits flip according to mutation probability
 	 */
 	public DNA crossoverBytewise(DNA other, double mutationprob){
-		DNA newdna = new DNA(false, data.length);
-		int numswaps = data.length/8; 
-		int swaps[] = new int[numswaps+1];
-		for (int i = 0; i < swaps.length-1; i++){
-			swaps[i] = 8*(int)Math.floor(Math.random()*data.length);
+		return crossoverBytewise(other, mutationprob, null);
+	}
+	/**
+	 * Same like crossoverBytewise(), the child is written into target
+	 *
+	 * @param target	DNA of the same length to overwrite, e.g. of a dead snake; null for a new one
+	 * @return			target
+	 */
+	public DNA crossoverBytewise(DNA other, double mutationprob, DNA target){
+		SplittableRandom random = RandomStreams.get();
+		target = prepareChild(target);
+		int swaps[] = target.swaps;
+		for (int i = 0; i < swaps.length; i++){
+			swaps[i] = 8*random.nextInt(data.length);
 		}
-		swaps[numswaps] = 8*data.length;  //save last
 		Arrays.sort(swaps);
-		int swapidx = 0;
+		return combine(other, mutationprob, target);
+	}
+	/**
+	 * @return target, or a new DNA if null, with the buffers for combine()
+	 */
+	private DNA prepareChild(DNA target){
+		if (target == null) target = new DNA(false, data.length);
+		if (target.swaps == null){
+			target.swaps = new int[data.length/8];
+			target.child = new long[(data.length + 7)/8];
+			target.fromThis = new long[target.child.length];
+		}
+		return target;
+	}
+	/**
+	 * Child of this and other for the crossover functions. The bits (bit i
+	 * is bit i%8 of byte i/8) are taken from this up to the first swap, then
+	 * from other up to the next one and so on. Then every bit flips with
+	 * probability mutationprob.
+	 * Works on 64 bits at a time, and the distance to the next flipped bit
+	 * is drawn from the geometric distribution instead of one draw per bit,
+	 * so the cost follows the number of swaps and mutations.
+	 * 
+	 * The child may be this or other.
+	 * 
+	 * @param mutationprob	probability of each bit to flip
+	 * @param newdna		child from prepareChild(), its swaps are the sorted bit positions where the parent changes
+	 */
+	private DNA combine(DNA other, double mutationprob, DNA newdna){
+		int bits = 8*data.length;
+		int swaps[] = newdna.swaps;
+		long child[] = newdna.child;
+		long fromThis[] = newdna.fromThis;  //1 where the bit comes from this
+		Arrays.fill(fromThis, 0);
 		boolean that = true;
-		for (int i = 0; i < 8*data.length; i++){
-			if (i >= swaps[swapidx]){
-				swapidx++;
-				that = !that;
-			}
-			int bit = 0;
-			if (that){
-				bit = ((this.data[i/8] >> (i%8)) & 1);
-			}
-			else {
-				bit = ((other.data[i/8] >> (i%8)) & 1);
+		int start = 0;
+		for (int s = 0; s <= swaps.length; s++){
+			int end = s < swaps.length ? swaps[s] : bits;
+			if (that) setBits(fromThis, start, end);
+			that = !that;
+			start = end;
+		}
+		for (int w = 0; w < child.length; w++){
+			child[w] = (word(this.data, w) & fromThis[w]) | (word(other.data, w) & ~fromThis[w]);
+		}
+		if (mutationprob >= 1){
+			for (int w = 0; w < child.length; w++) child[w] = ~child[w];
+		} else if (mutationprob > 0){
+			SplittableRandom random = RandomStreams.get();
+			// log1p: log(1 - p) would round to 0 for p below about 1e-16
+			double logq = Math.log1p(-mutationprob);
+			int pos = -1;
+			while (logq < 0){
+				// number of bits until the next flipped one:
+				double skip = Math.floor(Math.log(1 - random.nextDouble())/logq);
+				if (!(skip < bits - 1 - pos)) break;
+				pos += 1 + (int)skip;
+				child[pos >> 6] ^= 1L << pos;
 			}
-			if (Math.random() < mutationprob) bit = 1-bit;
-			newdna.data[i/8] |= (bit << (i%8));
+		}
+		for (int i = 0; i < data.length; i++){
+			newdna.data[i] = (byte)(child[i >> 3] >>> (8*(i & 7)));
 		}
 		return newdna;
 	}
+	/**
+	 * @return bytes 8w .. 8w+7 of d as one number, byte 8w lowest
+	 */
+	private static long word(byte d[], int w){
+		long v = 0;
+		for (int i = Math.min(d.length, 8*w + 8) - 1; i >= 8*w; i--){
+			v = (v << 8) | (d[i] & 0xFF);
+		}
+		return v;
+	}
+	/**
+	 * sets the bits from .. to-1
+	 */
+	private static void setBits(long words[], int from, int to){
+		if (from >= to) return;
+		int first = from >> 6, last = (to - 1) >> 6;
+		long head = -1L << from;  //shifts count modulo 64
+		long tail = -1L >>> (63 - ((to - 1) & 63));
+		if (first == last){
+			words[first] |= head & tail;
+			return;
+		}
+		words[first] |= head;
+		for (int w = first + 1; w < last; w++) words[w] = -1L;
+		words[last] |= tail;
+	}
 }
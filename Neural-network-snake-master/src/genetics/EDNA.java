@@ -1,7 +1,9 @@
 package genetics;
 
+import helpers.RandomStreams;
+
 import java.util.Arrays;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 public class EDNA {
 	/**
@@ -10,7 +12,6 @@ public class EDNA {
 	 * 	op encodes coeffs of EStage
 	 *  sp encodes mutation rates for op
 	 */
-	public Random random = new Random();
 	public byte op[];
 	public byte sigma;
 	
@@ -24,10 +25,11 @@ public class EDNA {
 		op = new byte[size];
 		//sp = new byte[size];
 		
-		for (int i = 0; i < op.length; i++){
-			op[i] = random?(byte)Math.floor(Math.random()*256d):0;
+		if (random){
+			SplittableRandom r = RandomStreams.get();
+			r.nextBytes(op);
+			sigma = (byte) r.nextInt(256);
 		}
-		sigma = random?(byte)Math.floor(Math.random()*256d):0;
 	}
 	/**
 	 * Crossover function which combines this DNA with another DNA object.
@@ -36,6 +38,7 @@ public class EDNA {
 	 */
 	public EDNA crossoverWithMutation(EDNA other){  //byte-wise, noise applied to each value
 		EDNA newdna = new EDNA(false, op.length);
+		SplittableRandom random = RandomStreams.get();
 
 		
 		//discrete recombination: randomly select one of two alleles
@@ -0,0 +1,66 @@
+package genetics;
+
+import helpers.RandomStreams;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+public class FitnessSelector {
+	/**
+	 * Fitness proportional selection (roulette wheel) without a mating pool.
+	 * The weights of the candidates are summed up once per breeding round,
+	 * each pick is then a binary search in these running sums: O(log n) and
+	 * no allocation once the array is big enough. Same odds as putting each
+	 * candidate weight times into a list and drawing from it.
+	 */
+	private int cumulative[] = new int[16]; // sum of the weights up to and including candidate i
+	public int size = 0;
+
+	/**
+	 * Removes all candidates, the array is kept
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Appends the next candidate, it gets the index size - 1
+	 *
+	 * @param weight	chance to be picked relative to the others, e.g. the number of mating pool entries
+	 */
+	public void add(int weight) {
+		if (size == cumulative.length)
+			cumulative = Arrays.copyOf(cumulative, size * 3 / 2 + 1);
+		cumulative[size] = (size > 0 ? cumulative[size - 1] : 0) + Math.max(0, weight);
+		size++;
+	}
+
+	/**
+	 * @return sum of all weights
+	 */
+	public int total() {
+		return size > 0 ? cumulative[size - 1] : 0;
+	}
+
+	/**
+	 * @return index of a candidate, picked with probability weight / total(),
+	 *         or uniformly when all weights are 0
+	 */
+	public int pick() {
+		SplittableRandom random = RandomStreams.get();
+		int total = total();
+		if (total == 0)
+			return random.nextInt(size);
+		int r = random.nextInt(total);
+		// first candidate whose running sum exceeds r:
+		int lo = 0, hi = size - 1;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (cumulative[mid] > r)
+				hi = mid;
+			else
+				lo = mid + 1;
+		}
+		return lo;
+	}
+}
@@ -0,0 +1,100 @@
+package helpers;
+
+import java.util.concurrent.locks.LockSupport;
+
+public class FixedTimestepScheduler {
+	/**
+	 * Fixed timestep loop based on System.nanoTime()
+	 * The thread is parked between ticks instead of spinning. When the
+	 * simulation falls behind, up to maxCatchUpTicks are run back to back
+	 * without rendering in between (frame skipping); anything further behind
+	 * is dropped so the loop never spirals.
+	 */
+	public final long periodNanos;
+	public final int maxCatchUpTicks;
+
+	// Statistics, only written by the thread in run(), volatile for the
+	// threads that display them:
+	public volatile long ticks = 0;
+	public volatile long skippedFrames = 0; // ticks that were not followed by a render
+	public volatile long droppedTicks = 0; // ticks given up by the catch-up policy
+	public volatile long maxJitterNanos = 0;
+	private volatile long jitterSumNanos = 0;
+
+	private volatile boolean running = false;
+
+	/**
+	 * C'tor
+	 *
+	 * @param periodNanos		time between two ticks in nanoseconds
+	 * @param maxCatchUpTicks	maximum number of ticks run in a row before rendering
+	 */
+	public FixedTimestepScheduler(long periodNanos, int maxCatchUpTicks) {
+		this.periodNanos = periodNanos;
+		this.maxCatchUpTicks = Math.max(1, maxCatchUpTicks);
+	}
+
+	/**
+	 * Runs the loop in the calling thread until stop() is called
+	 *
+	 * @param tick			simulation step, called once per period
+	 * @param render		called after each batch of ticks, may be null
+	 * @param initialDelayNanos	time to wait before the first tick
+	 */
+	public void run(Runnable tick, Runnable render, long initialDelayNanos) {
+		running = true;
+		long next = System.nanoTime() + initialDelayNanos;
+		while (running) {
+			long now = System.nanoTime();
+			if (now < next) {
+				LockSupport.parkNanos(next - now);
+				continue;
+			}
+			// lateness of the first tick of a batch is the scheduling jitter
+			long jitter = now - next;
+			jitterSumNanos += jitter;
+			if (jitter > maxJitterNanos)
+				maxJitterNanos = jitter;
+
+			int n = 0;
+			while (running && now >= next && n < maxCatchUpTicks) {
+				tick.run();
+				ticks++;
+				n++;
+				next += periodNanos;
+				now = System.nanoTime();
+			}
+			if (now >= next) { // still behind, give up the missed ticks
+				long missed = (now - next) / periodNanos + 1;
+				droppedTicks += missed;
+				next += missed * periodNanos;
+			}
+			skippedFrames += Math.max(n - 1, 0);
+			if (render != null)
+				render.run();
+		}
+	}
+
+	/**
+	 * Lets the loop end after the current tick
+	 */
+	public void stop() {
+		running = false;
+	}
+
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * @return mean lateness of the ticks in milliseconds
+	 */
+	public double getMeanJitterMillis() {
+		long batches = ticks - skippedFrames;
+		return batches > 0 ? jitterSumNanos / (double) batches / 1e6 : 0;
+	}
+
+	public double getMaxJitterMillis() {
+		return maxJitterNanos / 1e6;
+	}
+}
@@ -0,0 +1,90 @@
+package helpers;
+
+import java.util.SplittableRandom;
+
+public class RandomStreams {
+	/**
+	 * Source of all randomness of the simulation. Every thread draws from its
+	 * own SplittableRandom (get()), so threads never contend for one
+	 * generator. All streams are split off one master seed: the main thread
+	 * gets the first split, a World splits its own stream off the stream of
+	 * the thread creating it, and parallel workers are handed a stream per
+	 * task by whoever dispatches them (see set()), not per worker thread,
+	 * because which thread runs which task is up to the scheduler.
+	 * So with setSeed() a run can be replayed exactly.
+	 */
+	private static SplittableRandom master = new SplittableRandom();
+	private static volatile int epoch = 0; // incremented by setSeed(), older thread streams are replaced
+
+	private static class Stream {
+		SplittableRandom random;
+		int epoch;
+	}
+
+	private static final ThreadLocal<Stream> local = new ThreadLocal<Stream>() {
+		protected Stream initialValue() {
+			return new Stream();
+		}
+	};
+
+	/**
+	 * Restarts all randomness from the given seed. Call before anything
+	 * random happened, e.g. first thing in main().
+	 *
+	 * @param seed	master seed
+	 */
+	public static synchronized void setSeed(long seed) {
+		master = new SplittableRandom(seed);
+		epoch++;
+	}
+
+	/**
+	 * @return a new stream split off the master, independent of all others
+	 */
+	public static synchronized SplittableRandom split() {
+		return master.split();
+	}
+
+	/**
+	 * @return stream of the current thread, or the one set() for it
+	 */
+	public static SplittableRandom get() {
+		Stream s = local.get();
+		if (s.random == null || s.epoch != epoch) {
+			s.random = split();
+			s.epoch = epoch;
+		}
+		return s.random;
+	}
+
+	/**
+	 * Lets the current thread draw from the given stream, e.g. a worker for
+	 * the duration of one task
+	 *
+	 * @param random	stream to use from now on
+	 * @return			the stream used so far (null if none yet), to be set again afterwards
+	 */
+	public static SplittableRandom set(SplittableRandom random) {
+		Stream s = local.get();
+		SplittableRandom previous = s.random;
+		s.random = random;
+		s.epoch = epoch;
+		return previous;
+	}
+
+	/**
+	 * Normally distributed value, mean 0 and standard deviation 1 (polar method)
+	 *
+	 * @param random	stream to draw from
+	 * @return			gaussian value
+	 */
+	public static double nextGaussian(SplittableRandom random) {
+		double u, v, s;
+		do {
+			u = 2 * random.nextDouble() - 1;
+			v = 2 * random.nextDouble() - 1;
+			s = u * u + v * v;
+		} while (s >= 1 || s == 0);
+		return u * Math.sqrt(-2 * Math.log(s) / s);
+	}
+}
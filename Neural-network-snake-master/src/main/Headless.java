@@ -0,0 +1,72 @@
+package main;
+
+import gameEngine.ESTrainer;
+import gameEngine.GATrainer;
+import gameEngine.HeadlessEngine;
+import gameEngine.IslandGATrainer;
+import gameEngine.ParallelGATrainer;
+import gameEngine.SarsaTrainer;
+import gameEngine.TrainingStrategy;
+import helpers.RandomStreams;
+
+public class Headless {
+	/**
+	 * Training without a window, e.g. on build machines
+	 *
+	 * Usage: Headless [ga|es|sarsa|pga|islands] [width] [height] [generations] [realtime|fast] [seed] [nibbles]
+	 * Defaults: ga 1000 600 0 (0 = run forever), fast mode unless "realtime" is given
+	 * pga evaluates generations of 64 snakes in parallel, one world per snake,
+	 * using all cores
+	 * islands evolves one GA population per core, exchanging their best
+	 * genomes every few generations
+	 * With a seed every run with the same arguments is the same, without
+	 * one the seed is random
+	 * nibbles replaces the trainer's number of nibbles in the world, from
+	 * World.NIBBLEGRIDTHRESHOLD on the snakes find them through a grid
+	 */
+	public static void main(String[] args) {
+		String method = args.length > 0 ? args[0] : "ga";
+		int width = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+		int height = args.length > 2 ? Integer.parseInt(args[2]) : 600;
+		int generations = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+		boolean realtime = args.length > 4 && args[4].equals("realtime");
+		if (args.length > 5)
+			RandomStreams.setSeed(Long.parseLong(args[5]));
+		int nibbles = args.length > 6 ? Integer.parseInt(args[6]) : 0; // 0: the trainer's default
+
+		TrainingStrategy strategy;
+		if (method.equals("es")) {
+			ESTrainer es = new ESTrainer();
+			if (nibbles > 0)
+				es.numNibbles = nibbles;
+			strategy = es;
+		} else if (method.equals("sarsa")) {
+			SarsaTrainer sarsa = new SarsaTrainer();
+			if (nibbles > 0)
+				sarsa.numNibbles = nibbles;
+			strategy = sarsa;
+		} else if (method.equals("pga")) {
+			ParallelGATrainer pga = new ParallelGATrainer(64, Runtime.getRuntime().availableProcessors(), 1);
+			if (nibbles > 0)
+				pga.evaluator.numNibbles = nibbles;
+			strategy = pga;
+		} else if (method.equals("islands")) {
+			IslandGATrainer islands = new IslandGATrainer(Runtime.getRuntime().availableProcessors());
+			if (nibbles > 0)
+				islands.numNibbles = nibbles;
+			strategy = islands;
+		} else {
+			GATrainer ga = new GATrainer();
+			if (nibbles > 0)
+				ga.numNibbles = nibbles;
+			strategy = ga;
+		}
+
+		HeadlessEngine engine = new HeadlessEngine(strategy, width, height);
+		engine.maxGenerations = generations;
+		engine.fastMode = !realtime;
+		engine.run();
+		if (strategy instanceof IslandGATrainer)
+			((IslandGATrainer) strategy).stop();
+	}
+}
@@ -0,0 +1,164 @@
+package neuralNetwork;
+
+public class BatchNet {
+	/**
+	 * Evaluates many networks of the same architecture in one pass, stage by
+	 * stage for the whole batch instead of network by network. The weights
+	 * use the flat layout of NeuralNet (see loadCoeffs()), either one set
+	 * shared by the batch or one per network, e.g. the genomes of a
+	 * population. With shared weights each row is converted once and then
+	 * applied to all inputs, i.e. a matrix-matrix product.
+	 * Results are the same as NeuralNet.calc() would give.
+	 */
+	public final int stageSizes[];
+	public int capacity;
+	private double activations[][]; // per stage: network b at b * stageSizes[s]
+	private double row[]; // one converted weight row
+	private final boolean fastSigmoid; // mode of the networks, see Inference
+
+	/**
+	 * C'tor
+	 *
+	 * @param stageSizes	layer sizes like for NeuralNet, e.g. {48,16,16,2}
+	 * @param capacity		initial number of networks per batch, grows on demand
+	 */
+	public BatchNet(int stageSizes[], int capacity) {
+		this(stageSizes, capacity, Inference.EXACT);
+	}
+
+	/**
+	 * Same like BatchNet(stageSizes, capacity), calculating like a NeuralNet
+	 * in the given mode
+	 *
+	 * @param inference	mode of the networks, only fastSigmoid is used here
+	 */
+	public BatchNet(int stageSizes[], int capacity, Inference inference) {
+		fastSigmoid = inference.fastSigmoid;
+		this.stageSizes = stageSizes.clone();
+		int widest = 0;
+		for (int s = 0; s < stageSizes.length; s++)
+			widest = Math.max(widest, stageSizes[s] + 1);
+		row = new double[widest];
+		activations = new double[stageSizes.length][];
+		ensureCapacity(Math.max(capacity, 1));
+	}
+
+	private double activate(double x) {
+		return fastSigmoid ? Stage.sigmoidApprox(x) : Stage.sigmoid(x);
+	}
+
+	private void ensureCapacity(int count) {
+		if (count <= capacity)
+			return;
+		capacity = Math.max(count, capacity + capacity / 2);
+		for (int s = 1; s < stageSizes.length; s++)
+			activations[s] = new double[capacity * stageSizes[s]];
+	}
+
+	/**
+	 * Calculates count networks sharing one set of weights
+	 *
+	 * @param coeffs	weights in NeuralNet order
+	 * @param inputs	input vectors, the one of network b at b * stageSizes[0]
+	 * @param count		number of networks
+	 * @return			output vectors in the same arrangement, valid until the next call
+	 */
+	public double[] calc(byte coeffs[], double inputs[], int count) {
+		ensureCapacity(count);
+		double in[] = inputs;
+		int offset = 0;
+		for (int s = 1; s < stageSizes.length; s++) {
+			int n = stageSizes[s - 1];
+			int m = stageSizes[s];
+			double out[] = activations[s];
+			for (int i = 0; i < m; i++) {
+				// convert the row once, use it for the whole batch
+				int r = offset + i * (n + 1);
+				for (int j = 0; j <= n; j++)
+					row[j] = coeffs[r + j];
+				int b = 0;
+				// four networks at a time, each weight is loaded once for them
+				for (; b + 3 < count; b += 4) {
+					int x0 = b * n, x1 = x0 + n, x2 = x1 + n, x3 = x2 + n;
+					double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+					for (int j = 0; j < n; j++) {
+						double w = row[j];
+						s0 += w * in[x0 + j];
+						s1 += w * in[x1 + j];
+						s2 += w * in[x2 + j];
+						s3 += w * in[x3 + j];
+					}
+					double bias = row[n] * Stage.signalMultiplier; // constant bias
+					out[b * m + i] = activate(s0 + bias);
+					out[(b + 1) * m + i] = activate(s1 + bias);
+					out[(b + 2) * m + i] = activate(s2 + bias);
+					out[(b + 3) * m + i] = activate(s3 + bias);
+				}
+				for (; b < count; b++) {
+					int x = b * n;
+					double sum = 0;
+					for (int j = 0; j < n; j++) {
+						sum += row[j] * in[x + j];
+					}
+					sum += row[n] * Stage.signalMultiplier; // constant bias
+					out[b * m + i] = activate(sum);
+				}
+			}
+			offset += m * (n + 1);
+			in = out;
+		}
+		return in;
+	}
+
+	/**
+	 * Calculates count networks, each with its own weights
+	 *
+	 * @param coeffs	weights of network b in coeffs[b], NeuralNet order
+	 * @param inputs	input vectors, the one of network b at b * stageSizes[0]
+	 * @param count		number of networks
+	 * @return			output vectors in the same arrangement, valid until the next call
+	 */
+	public double[] calc(byte coeffs[][], double inputs[], int count) {
+		ensureCapacity(count);
+		double in[] = inputs;
+		int offset = 0;
+		for (int s = 1; s < stageSizes.length; s++) {
+			int n = stageSizes[s - 1];
+			int m = stageSizes[s];
+			double out[] = activations[s];
+			for (int b = 0; b < count; b++) {
+				byte w[] = coeffs[b];
+				int x = b * n;
+				int i = 0;
+				// four outputs at a time, each input is loaded once for them
+				for (; i + 3 < m; i += 4) {
+					int r0 = offset + i * (n + 1), r1 = r0 + n + 1, r2 = r1 + n + 1, r3 = r2 + n + 1;
+					double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+					for (int j = 0; j < n; j++) {
+						double v = in[x + j];
+						s0 += w[r0 + j] * v;
+						s1 += w[r1 + j] * v;
+						s2 += w[r2 + j] * v;
+						s3 += w[r3 + j] * v;
+					}
+					out[b * m + i] = activate(s0 + w[r0 + n] * Stage.signalMultiplier);
+					out[b * m + i + 1] = activate(s1 + w[r1 + n] * Stage.signalMultiplier);
+					out[b * m + i + 2] = activate(s2 + w[r2 + n] * Stage.signalMultiplier);
+					out[b * m + i + 3] = activate(s3 + w[r3 + n] * Stage.signalMultiplier);
+				}
+				for (; i < m; i++) {
+					int r = offset + i * (n + 1);
+					double sum = 0;
+					for (int j = 0; j < n; j++) {
+						sum += w[r + j] * in[x + j];
+					}
+					sum += w[r + n] * Stage.signalMultiplier; // constant bias
+					out[b * m + i] = activate(sum);
+				}
+			}
+			offset += m * (n + 1);
+			in = out;
+		}
+		return in;
+	}
+}
@@ -7,6 +7,11 @@ import java.awt.Graphics2D;
 
 public class ESNet {
 	public EStage stages[];
+	private byte weights[]; // one array with the weights of all stages, unless bound to a genome
+	public final Inference inference; // mode, fixed at construction
+	// all stages composed: row i is the weights of output i, its last entry the bias
+	private double affine[];
+	private boolean affineValid = false;
 
 	/**
 	 * Constructor
@@ -17,13 +22,81 @@ public class ESNet {
 	 *            First stage has no nonlinearity
 	 */
 	public ESNet(int stageSizes[]) {
+		this(stageSizes, Inference.EXACT);
+	}
+
+	/**
+	 * Same like ESNet(stageSizes), calculating in the given mode
+	 * 
+	 * @param stageSizes
+	 *            Array specifying the sizes of each layer
+	 * @param inference
+	 *            quantized, collapsed or int8 kernel, see Inference
+	 */
+	public ESNet(int stageSizes[], Inference inference) {
+		this.inference = inference;
+		weights = new byte[calcNumberOfCoeffs(stageSizes)];
 		stages = new EStage[stageSizes.length];
 		EStage prev = null;
+		int offset = 0;
 		for (int i = 0; i < stageSizes.length; i++) {
-			stages[i] = new EStage(prev, stageSizes[i]);
+			stages[i] = new EStage(prev, stageSizes[i], weights, offset, inference);
+			offset += stages[i].numberOfCoeffs();
 			prev = stages[i];
 		}
 	}
+
+	/**
+	 * Lets the network use the coefficients of the given array, e.g. a genome,
+	 * directly without copying them. The array must not change while bound.
+	 * @param coeffs	array with the coefficients in the same order as for loadCoeffs()
+	 */
+	public void bindCoeffs(byte coeffs[]) {
+		int offset = 0;
+		for (int s = 1; s < stages.length; s++) {
+			stages[s].bind(coeffs, offset);
+			offset += stages[s].numberOfCoeffs();
+		}
+		affineValid = false;
+		if (inference.collapsed)
+			collapse();
+	}
+
+	/**
+	 * Composes the stages into one affine map. The stages have no
+	 * nonlinearity, so for {48,16,16,2} the network is the same as a 2x49
+	 * matrix: about 100 multiply-adds per calc() instead of about 1100.
+	 * The weights are integers and the biases multiples of signalMultiplier,
+	 * so the composed entries are integers as well and exact in double for
+	 * networks of this size. Only the summation order of calc() changes.
+	 */
+	public void collapse() {
+		int inputs = stages[0].output.length;
+		// start with the identity and apply the stages one by one
+		double map[] = new double[inputs * (inputs + 1)];
+		for (int j = 0; j < inputs; j++)
+			map[j * (inputs + 1) + j] = 1;
+		int rows = inputs;
+		for (int s = 1; s < stages.length; s++) {
+			EStage stage = stages[s];
+			double next[] = new double[stage.output.length * (inputs + 1)];
+			for (int i = 0; i < stage.output.length; i++) {
+				int row = i * (inputs + 1);
+				for (int k = 0; k < rows; k++) {
+					double w = stage.coeff(i, k);
+					if (w == 0)
+						continue;
+					for (int j = 0; j <= inputs; j++)
+						next[row + j] += w * map[k * (inputs + 1) + j];
+				}
+				next[row + inputs] += stage.coeff(i, rows); // bias, in units of signalMultiplier
+			}
+			map = next;
+			rows = stage.output.length;
+		}
+		affine = map;
+		affineValid = true;
+	}
 	
 	/**
 	 * Loads the weights / coefficients from the linear array sequentially into the network
@@ -31,14 +104,8 @@ public class ESNet {
 	 * Note: no dimension/length check is done, will crash when given wrong sized array! 
 	 */
 	public void loadCoeffs(byte coeffs[]) {
-		int idx = 0;
-		for (int s = 1; s < stages.length; s++) {
-			for (int i = 0; i < stages[s].coeffs.length; i++) {
-				for (int j = 0; j < stages[s].coeffs[0].length; j++) {
-					stages[s].coeffs[i][j] = coeffs[idx++];
-				}
-			}
-		}
+		System.arraycopy(coeffs, 0, weights, 0, weights.length);
+		bindCoeffs(weights);
 	}
 	
 	
@@ -53,11 +120,42 @@ public class ESNet {
 		for (int i = 0; i < input.length; i++) {
 			stages[0].output[i] = input[i];
 		}
+		if (inference.collapsed && !inference.quantized) {
+			if (!affineValid)
+				collapse();
+			return calcCollapsed(input);
+		}
+		if (inference.quantized) {
+			stages[0].quantize();
+			for (int i = 1; i < stages.length; i++) {
+				stages[i].calcQuantized();
+			}
+			return stages[stages.length - 1].output;
+		}
 		for (int i = 1; i < stages.length; i++) {
 			stages[i].calc();
 		}
 		return stages[stages.length - 1].output;
 	}
+	/**
+	 * calc() with the affine map of collapse(). Only the input and output
+	 * stages are updated, display() shows the hidden stages of the last
+	 * calc() without it.
+	 */
+	private double[] calcCollapsed(double input[]) {
+		double output[] = stages[stages.length - 1].output;
+		int inputs = input.length;
+		for (int i = 0; i < output.length; i++) {
+			int row = i * (inputs + 1);
+			double sum = 0;
+			for (int j = 0; j < inputs; j++) {
+				sum += affine[row + j] * input[j];
+			}
+			sum += affine[row + inputs] * EStage.signalMultiplier; // constant bias
+			output[i] = sum;
+		}
+		return output;
+	}
 	/**
 	 * Calculates the needed number of coefficients for given Neural Net architecture
 	 * Used for DNA-length 
@@ -104,9 +202,9 @@ public class ESNet {
 			int x1 = (s) * (int) (w / (stages.length + 1));
 			int x2 = (s + 1) * (int) (w / (stages.length + 1));
 
-			for (int i = 0; i < stages[s].coeffs.length; i++) {
-				for (int j = 0; j < stages[s].coeffs[0].length - 1; j++) {
-					int c = stages[s].coeffs[i][j];
+			for (int i = 0; i < stages[s].output.length; i++) {
+				for (int j = 0; j < stages[s].stride - 1; j++) {
+					int c = stages[s].coeff(i, j);
 					if (Math.abs(c) < 48)
 						continue;
 					g2.setStroke(new BasicStroke(Math.abs(c) * 3 / 129));
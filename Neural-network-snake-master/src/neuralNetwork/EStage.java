@@ -3,30 +3,160 @@ package neuralNetwork;
 public class EStage {
 	
 	public static final double signalMultiplier = .1;
+	private static final Int8Kernel KERNEL = Int8Kernel.get();
+	// fixed point, see calcQuantized(): every stage keeps its activations below 2^QLIMIT,
+	// the inputs get up to QBITS fraction bits (in units of signalMultiplier)
+	private static final int QLIMIT = 30;
+	public static final int QBITS = QLIMIT - 1;
 	
 	public EStage prev;
 	public double output[];
-	public byte coeffs[][];
+	// weights, row i (one per output) starts at offset + i * stride,
+	// its last entry is the bias. Usually a window into one array for the whole net.
+	public byte coeffs[];
+	public int offset = 0;
+	public int stride;
+	private float floatInput[]; // previous outputs as float for the Int8Kernel
+	public int qOutput[]; // outputs in fixed point, output = qOutput * 2^-qBits * signalMultiplier
+	public int qBits;
+	private long qSum[];
+	private final boolean int8Kernel; // calc() with float activations and the Int8Kernel, if available (mode of the network, see Inference)
 	
 	public EStage(EStage prev, int size){
+		this(prev, size, new byte[prev != null ? size * (prev.output.length + 1) : 0], 0);
+	}
+	
+	/**
+	 * C'tor for a stage whose weights lie in a given array
+	 * 
+	 * @param prev		previous stage, null for the input stage
+	 * @param size		number of outputs
+	 * @param coeffs	array holding the weights
+	 * @param offset	position of the first weight in coeffs
+	 */
+	public EStage(EStage prev, int size, byte coeffs[], int offset){
+		this(prev, size, coeffs, offset, Inference.EXACT);
+	}
+	
+	/**
+	 * Same like EStage(prev, size, coeffs, offset), calculating in the given mode
+	 * 
+	 * @param inference	mode of the network, only int8Kernel is used here
+	 */
+	public EStage(EStage prev, int size, byte coeffs[], int offset, Inference inference){
+		int8Kernel = inference.int8Kernel;
 		this.prev = prev;
 		output = new double[size];
-		if (prev != null)
-			coeffs = new byte[size][prev.output.length+1];
-		else
-			coeffs = new byte[0][0];
+		stride = prev != null ? prev.output.length + 1 : 0;
+		qOutput = new int[size];
+		qSum = new long[size];
+		bind(coeffs, offset);
+	}
+	
+	/**
+	 * Uses the weights in the given array from now on, nothing is copied
+	 */
+	public void bind(byte coeffs[], int offset){
+		this.coeffs = coeffs;
+		this.offset = offset;
+	}
+	
+	/**
+	 * @return number of weights including the biases
+	 */
+	public int numberOfCoeffs(){
+		return output.length * stride;
+	}
+	
+	/**
+	 * @return weight from input j to output i, j = inputs is the bias
+	 */
+	public byte coeff(int i, int j){
+		return coeffs[offset + i * stride + j];
 	}
+	
 	/**
 	 * calculates the outputs based on the input values
 	 */
 	public void calc(){
 		if (prev == null) return;
-		for (int i = 0; i < coeffs.length; i++){
+		if (int8Kernel && KERNEL != null) {
+			calcInt8();
+			return;
+		}
+		double in[] = prev.output;
+		int inputs = stride - 1;
+		for (int i = 0; i < output.length; i++){
+			int row = offset + i * stride;
 			double sum = 0;
-			for (int j = 0; j < coeffs[0].length-1; j++){
-				sum += coeffs[i][j]*prev.output[j];
+			for (int j = 0; j < inputs; j++){
+				sum += coeffs[row + j]*in[j];
 			}
-			sum += coeffs[i][coeffs[0].length-1]*signalMultiplier;  //constant bias
+			sum += coeffs[row + inputs]*signalMultiplier;  //constant bias
+			output[i] = sum;
+		}
+	}
+	/**
+	 * converts output to qOutput, for the input stage of a quantized net.
+	 * Uses QBITS fraction bits, fewer when the largest input would not fit.
+	 */
+	public void quantize(){
+		double max = 0;
+		for (int i = 0; i < output.length; i++){
+			max = Math.max(max, Math.abs(output[i]));
+		}
+		qBits = Math.min(QBITS, QLIMIT - 1 - Math.getExponent(max / signalMultiplier));
+		for (int i = 0; i < output.length; i++){
+			qOutput[i] = (int) Math.rint(Math.scalb(output[i] / signalMultiplier, qBits));
+		}
+	}
+	/**
+	 * same like calc() in fixed point: 32 bit activations and 64 bit sums.
+	 * The stages are linear, so the sums are exact. They can grow by a
+	 * factor of a few thousand per stage, so afterwards they are shifted
+	 * right just as far as needed to fit QLIMIT bits again, which gives each
+	 * stage its own qBits. Fills output as well.
+	 */
+	public void calcQuantized(){
+		int in[] = prev.qOutput;
+		int inputs = stride - 1;
+		int bits = prev.qBits;
+		long max = 0;
+		for (int i = 0; i < output.length; i++){
+			int row = offset + i * stride;
+			long sum = 0;
+			for (int j = 0; j < inputs; j++){
+				sum += coeffs[row + j]*(long)in[j];
+			}
+			//constant bias, signalMultiplier in units of the inputs:
+			if (bits >= 0)
+				sum += (long)coeffs[row + inputs] << bits;
+			else
+				sum += Math.round(Math.scalb((double)coeffs[row + inputs], bits));
+			qSum[i] = sum;
+			max = Math.max(max, Math.abs(sum));
+		}
+		int shift = Math.max(0, 64 - Long.numberOfLeadingZeros(max) - QLIMIT);
+		qBits = bits - shift;
+		double unit = Math.scalb(signalMultiplier, -qBits);
+		for (int i = 0; i < output.length; i++){
+			long q = shift > 0 ? (qSum[i] + (1L << (shift - 1))) >> shift : qSum[i];
+			qOutput[i] = (int) q;
+			output[i] = q * unit;
+		}
+	}
+	/**
+	 * same like calc(), using the Int8Kernel
+	 */
+	private void calcInt8(){
+		int inputs = stride - 1;
+		if (floatInput == null)
+			floatInput = new float[inputs];
+		Int8Kernel.toFloat(prev.output, floatInput);
+		for (int i = 0; i < output.length; i++){
+			int row = offset + i * stride;
+			float sum = KERNEL.dot(coeffs, row, floatInput, inputs);
+			sum += coeffs[row + inputs]*(float)signalMultiplier;  //constant bias
 			output[i] = sum;
 		}
 	}
@@ -36,10 +166,10 @@ public class EStage {
 	
 	public String toString(){
 		String k = "[";
-		for (int i = 0; i< coeffs.length; i++){
+		for (int i = 0; i< output.length && stride > 0; i++){
 			k += "[";
-			for (int j = 0; j < coeffs[0].length; j++){
-				k += Byte.toString(coeffs[i][j])+" ";
+			for (int j = 0; j < stride; j++){
+				k += Byte.toString(coeff(i, j))+" ";
 			}
 			k += "]\n ";
 		}
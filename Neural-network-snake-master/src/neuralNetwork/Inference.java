@@ -0,0 +1,72 @@
+package neuralNetwork;
+
+public final class Inference {
+	/**
+	 * How a network calculates its outputs. A network gets its mode when it
+	 * is constructed and keeps it, so networks in different modes can run
+	 * side by side, e.g. in the benchmarks. EXACT is the double path, the
+	 * other modes trade a little accuracy for speed (see benchmark.Accuracy).
+	 * A kind of network ignores the modes it does not have: fastSigmoid,
+	 * pruneThreshold and incrementalThreshold only apply to NeuralNet,
+	 * collapsed only to ESNet.
+	 */
+	public static final Inference EXACT = new Inference(false, false, false, 0, false, -1);
+
+	public final boolean quantized; // calc() in fixed point, see Stage.calcQuantized() and EStage.calcQuantized()
+	public final boolean fastSigmoid; // sigmoid from a table instead of Math.exp(), see Stage.sigmoidApprox()
+	public final boolean int8Kernel; // calc() with float activations and the Int8Kernel, if available
+	public final int pruneThreshold; // > 0: smaller weights are dropped when loading, see NeuralNet.prune()
+	public final boolean collapsed; // calc() with one affine map for all stages, see ESNet.collapse()
+	public final double incrementalThreshold; // >= 0: Snake.brain() uses NeuralNet.calcIncremental() with it, only on the dense double path
+
+	private Inference(boolean quantized, boolean fastSigmoid, boolean int8Kernel, int pruneThreshold, boolean collapsed,
+			double incrementalThreshold) {
+		this.quantized = quantized;
+		this.fastSigmoid = fastSigmoid;
+		this.int8Kernel = int8Kernel;
+		this.pruneThreshold = pruneThreshold;
+		this.collapsed = collapsed;
+		this.incrementalThreshold = incrementalThreshold;
+	}
+
+	public Inference withQuantized(boolean quantized) {
+		return new Inference(quantized, fastSigmoid, int8Kernel, pruneThreshold, collapsed, incrementalThreshold);
+	}
+
+	public Inference withFastSigmoid(boolean fastSigmoid) {
+		return new Inference(quantized, fastSigmoid, int8Kernel, pruneThreshold, collapsed, incrementalThreshold);
+	}
+
+	public Inference withInt8Kernel(boolean int8Kernel) {
+		return new Inference(quantized, fastSigmoid, int8Kernel, pruneThreshold, collapsed, incrementalThreshold);
+	}
+
+	public Inference withPruneThreshold(int pruneThreshold) {
+		return new Inference(quantized, fastSigmoid, int8Kernel, pruneThreshold, collapsed, incrementalThreshold);
+	}
+
+	public Inference withCollapsed(boolean collapsed) {
+		return new Inference(quantized, fastSigmoid, int8Kernel, pruneThreshold, collapsed, incrementalThreshold);
+	}
+
+	public Inference withIncrementalThreshold(double incrementalThreshold) {
+		return new Inference(quantized, fastSigmoid, int8Kernel, pruneThreshold, collapsed, incrementalThreshold);
+	}
+
+	public String toString() {
+		String k = "";
+		if (quantized)
+			k += " quantized";
+		if (fastSigmoid)
+			k += " fastSigmoid";
+		if (int8Kernel)
+			k += " int8Kernel";
+		if (pruneThreshold > 0)
+			k += " pruneThreshold=" + pruneThreshold;
+		if (collapsed)
+			k += " collapsed";
+		if (incrementalThreshold >= 0)
+			k += " incrementalThreshold=" + incrementalThreshold;
+		return k.isEmpty() ? "exact" : k.substring(1);
+	}
+}
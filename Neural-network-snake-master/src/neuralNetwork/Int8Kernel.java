@@ -0,0 +1,60 @@
+package neuralNetwork;
+
+public abstract class Int8Kernel {
+	/**
+	 * Dot product of int8 weights with float activations, used by Stage and
+	 * EStage of networks built with Inference.int8Kernel.
+	 *
+	 * The implementation is VectorInt8Kernel in src-vector, built on the
+	 * Vector API: it widens a vector of bytes to floats and multiplies-adds
+	 * across all lanes at once. It is only available when it was compiled
+	 * and the JVM was started with --add-modules jdk.incubator.vector;
+	 * otherwise get() returns null and the stages keep their scalar double
+	 * loop, which plain Java runs faster than any scalar float variant.
+	 *
+	 * Sums are rounded to float and added in a different order than the
+	 * double loop. For the sigmoid stages this changes outputs by less than
+	 * 1e-6; for the linear EStages, where large terms can cancel, the
+	 * relative error of a small output can be much larger.
+	 */
+	private static Int8Kernel kernel = null;
+	private static boolean loaded = false;
+
+	/**
+	 * @return the vector kernel, null when it is not available in this JVM
+	 */
+	public static synchronized Int8Kernel get() {
+		if (!loaded) {
+			loaded = true;
+			try {
+				kernel = (Int8Kernel) Class.forName("neuralNetwork.VectorInt8Kernel").getDeclaredConstructor().newInstance();
+			} catch (Throwable e) { // not compiled, or the incubator module is missing
+				kernel = null;
+			}
+		}
+		return kernel;
+	}
+
+	public abstract String name();
+
+	/**
+	 * @param w		weights
+	 * @param row	position of the first weight in w
+	 * @param x		activations
+	 * @param n		number of products
+	 * @return		sum of w[row + j] * x[j] for j < n
+	 */
+	public abstract float dot(byte w[], int row, float x[], int n);
+
+	/**
+	 * Converts activations to float
+	 *
+	 * @param in	activations
+	 * @param out	output, at least as long as in
+	 */
+	public static void toFloat(double in[], float out[]) {
+		for (int j = 0; j < in.length; j++) {
+			out[j] = (float) in[j];
+		}
+	}
+}
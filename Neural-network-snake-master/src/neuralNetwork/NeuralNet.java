@@ -7,6 +7,17 @@ import java.awt.Graphics2D;
 
 public class NeuralNet {
 	public Stage stages[];
+	private byte weights[]; // one array with the weights of all stages, unless bound to a genome
+	public final Inference inference; // mode, fixed at construction
+	private int keptSynapses = 0;
+	// see calcIncremental(): the last input applied to the first stage, whether its sums are
+	// up to date, number of updates since they were last calculated from scratch
+	private double incrementalInput[];
+	private boolean incrementalValid = false;
+	private int incrementalUpdates = 0;
+	private int changedIndex[];
+	private double changedDelta[];
+	public static final int INCREMENTALRESYNC = 1000;
 
 	/**
 	 * C'tor
@@ -17,50 +28,116 @@ public class NeuralNet {
 	 *            First stage has no nonlinearity
 	 */
 	public NeuralNet(int stageSizes[]) {
+		this(stageSizes, Inference.EXACT);
+	}
+
+	/**
+	 * Same like NeuralNet(stageSizes), calculating in the given mode
+	 * 
+	 * @param stageSizes
+	 *            Array specifying the sizes of each layer
+	 * @param inference
+	 *            quantized, pruned, fast sigmoid, ... see Inference
+	 */
+	public NeuralNet(int stageSizes[], Inference inference) {
+		this.inference = inference;
+		weights = new byte[calcNumberOfCoeffs(stageSizes, false)];
 		stages = new Stage[stageSizes.length];
 		Stage prev = null;
+		int offset = 0;
 		for (int i = 0; i < stageSizes.length; i++) {
-			stages[i] = new Stage(prev, stageSizes[i]);
+			stages[i] = new Stage(prev, stageSizes[i], weights, offset, inference);
+			offset += stages[i].numberOfCoeffs();
 			prev = stages[i];
 		}
+		prune(inference.pruneThreshold);
+	}
+
+	/**
+	 * Lets the network use the coefficients of the given array, e.g. a genome,
+	 * directly without copying them. The array must not change while bound.
+	 * @param coeffs	array with the coefficients in the same order as for loadCoeffs()
+	 */
+	public void bindCoeffs(byte coeffs[]) {
+		int offset = 0;
+		for (int s = 1; s < stages.length; s++) {
+			stages[s].bind(coeffs, offset);
+			stages[s].setSymmetric(false);
+			offset += stages[s].numberOfCoeffs();
+		}
+		incrementalValid = false;
+		prune(inference.pruneThreshold);
 	}
 	
+	/**
+	 * @return array the stages currently use, coefficients in loadCoeffs() order
+	 */
+	public byte[] getCoeffs() {
+		return stages.length > 1 ? stages[1].coeffs : weights;
+	}
+
 	/**
 	 * Loads the weights / coefficients from the linear array sequentially into the network
 	 * @param coeffs	array with the coefficients ranging -128 to +127.
 	 * Note: no dimension/length check is done, will crash when given wrong sized array! 
 	 */
 	public void loadCoeffs(byte coeffs[]) {
-		int idx = 0;
-		for (int s = 1; s < stages.length; s++) {
-			for (int i = 0; i < stages[s].coeffs.length; i++) {
-				for (int j = 0; j < stages[s].coeffs[0].length; j++) {
-					stages[s].coeffs[i][j] = coeffs[idx++];
-				}
-			}
-		}
+		System.arraycopy(coeffs, 0, weights, 0, weights.length);
+		bindCoeffs(weights);
 	}
 	
 	/**
 	 * Same like loadCoeffs(), but will fill the network symmetrically
-	 * Only use when all stage sizes are even
+	 * Only use when all stage sizes are even. calc() then computes each
+	 * mirrored pair of neurons together, see Stage.setSymmetric()
 	 * @param coeffs array with the coefficients ranging -128 to +127.
 	 */
 
 	public void loadCoeffsSymmetrical(byte coeffs[]) {
+		bindCoeffs(weights);
 		int idx = 0;
 		for (int s = 1; s < stages.length; s++) {
-			if (stages[s].coeffs.length % 2 == 1) {
+			if (stages[s].output.length % 2 == 1) {
 				System.err.println("Symmetrical Net without even sized stages. Bad.");
 				return;
 			}
-			for (int i = 0; i < (stages[s].coeffs.length) / 2; i++) {
-				for (int j = 0; j < stages[s].coeffs[0].length; j++) {
-					stages[s].coeffs[i][j] = coeffs[idx];
-					stages[s].coeffs[stages[s].coeffs.length - 1 - i][stages[s].coeffs[0].length - 1 - j] = coeffs[idx++];
-				}
+			// mirroring row i, column j to row n-1-i, column m-1-j mirrors the flat index
+			int first = stages[s].offset;
+			int last = first + stages[s].numberOfCoeffs() - 1;
+			for (int k = 0; k < stages[s].numberOfCoeffs() / 2; k++) {
+				weights[first + k] = coeffs[idx];
+				weights[last - k] = coeffs[idx++];
 			}
 		}
+		for (int s = 1; s < stages.length; s++) {
+			stages[s].setSymmetric(true);
+		}
+		prune(inference.pruneThreshold);
+	}
+
+	/**
+	 * Lets calc() and calcSparse() skip the synapses with |weight| < threshold,
+	 * see Stage.prune(). Done by bindCoeffs() and the load methods with
+	 * the pruneThreshold of the mode. The other modes keep using all weights.
+	 * 
+	 * @param threshold	smallest weight kept, 0 to keep all
+	 */
+	public void prune(int threshold) {
+		keptSynapses = 0;
+		for (int s = 1; s < stages.length; s++) {
+			keptSynapses += stages[s].prune(threshold);
+		}
+	}
+
+	/**
+	 * @return fraction of the synapses (biases not counted) dropped by prune()
+	 */
+	public double getSparsity() {
+		int synapses = 0;
+		for (int s = 1; s < stages.length; s++) {
+			synapses += stages[s].output.length * (stages[s].stride - 1);
+		}
+		return synapses > 0 ? 1 - (double) keptSynapses / synapses : 0;
 	}
 	
 	/**
@@ -71,10 +148,103 @@ public class NeuralNet {
 	 */
 
 	public double[] calc(double input[]) {
+		incrementalValid = false;
 		for (int i = 0; i < input.length; i++) {
 			stages[0].output[i] = input[i];
 		}
+		if (inference.quantized)
+			return calcQuantized();
+		for (int i = 1; i < stages.length; i++) {
+			stages[i].calc();
+		}
+		return stages[stages.length - 1].output;
+	}
+	/**
+	 * calc() in fixed point for the input already in stages[0].output
+	 */
+	private double[] calcQuantized() {
+		stages[0].quantize();
 		for (int i = 1; i < stages.length; i++) {
+			stages[i].calcQuantized();
+		}
+		return stages[stages.length - 1].output;
+	}
+	/**
+	 * Same like calc() for an input vector given by its nonzero entries, like
+	 * the one-hot encoded vision of a snake. The first stage only looks at
+	 * those columns, so its cost grows with count instead of the input size.
+	 * 
+	 * @param index		positions of the nonzero inputs, ascending
+	 * @param value		their values
+	 * @param count		number of nonzero inputs
+	 * @return			output vector
+	 */
+	public double[] calcSparse(int index[], double value[], int count) {
+		incrementalValid = false;
+		double input[] = stages[0].output; // kept complete for display()
+		for (int i = 0; i < input.length; i++) {
+			input[i] = 0;
+		}
+		for (int k = 0; k < count; k++) {
+			input[index[k]] = value[k];
+		}
+		if (inference.quantized)
+			return calcQuantized();
+		stages[1].calcSparse(index, value, count);
+		for (int i = 2; i < stages.length; i++) {
+			stages[i].calc();
+		}
+		return stages[stages.length - 1].output;
+	}
+	/**
+	 * Same like calc() for inputs that change little from call to call, like
+	 * the vision of a snake from tick to tick. The weighted sums of the first
+	 * stage are kept and only updated for the inputs that changed by more
+	 * than threshold, smaller changes are ignored until they add up. When no
+	 * input changed the last output is returned right away. So the cost
+	 * follows how much the input changed.
+	 * Every INCREMENTALRESYNC updates the sums are calculated from scratch,
+	 * against rounding errors piling up. The kept sums are those of the
+	 * dense double path, so with a quantized, pruned or symmetric first stage
+	 * or the int8 kernel this is just calc() and threshold is not used.
+	 * 
+	 * @param input		input vector (first stage values)
+	 * @param threshold	changes up to this are ignored, 0 for exact results
+	 * @return			output vector
+	 */
+	public double[] calcIncremental(double input[], double threshold) {
+		if (inference.quantized || inference.int8Kernel || stages[1].pruned || stages[1].symmetric)
+			return calc(input);
+		if (incrementalInput == null) {
+			incrementalInput = new double[input.length];
+			changedIndex = new int[input.length];
+			changedDelta = new double[input.length];
+		}
+		if (!incrementalValid || incrementalUpdates >= INCREMENTALRESYNC) {
+			for (int i = 0; i < input.length; i++) {
+				incrementalInput[i] = input[i];
+				stages[0].output[i] = input[i];
+			}
+			stages[1].calcSums();
+			incrementalValid = true;
+			incrementalUpdates = 0;
+		} else {
+			int count = 0;
+			for (int i = 0; i < input.length; i++) {
+				double delta = input[i] - incrementalInput[i];
+				if (Math.abs(delta) > threshold) {
+					changedIndex[count] = i;
+					changedDelta[count++] = delta;
+					incrementalInput[i] = input[i];
+					stages[0].output[i] = input[i];
+				}
+			}
+			if (count == 0)
+				return stages[stages.length - 1].output;
+			stages[1].updateSums(changedIndex, changedDelta, count);
+			incrementalUpdates++;
+		}
+		for (int i = 2; i < stages.length; i++) {
 			stages[i].calc();
 		}
 		return stages[stages.length - 1].output;
@@ -128,9 +298,9 @@ public class NeuralNet {
 			int x1 = (s) * (int) (w / (stages.length + 1));
 			int x2 = (s + 1) * (int) (w / (stages.length + 1));
 
-			for (int i = 0; i < stages[s].coeffs.length; i++) {
-				for (int j = 0; j < stages[s].coeffs[0].length - 1; j++) {
-					int c = stages[s].coeffs[i][j];
+			for (int i = 0; i < stages[s].output.length; i++) {
+				for (int j = 0; j < stages[s].stride - 1; j++) {
+					int c = stages[s].coeff(i, j);
 					if (Math.abs(c) < 48)
 						continue;
 					g2.setStroke(new BasicStroke(Math.abs(c) * 3 / 129));
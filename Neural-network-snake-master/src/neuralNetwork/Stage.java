@@ -3,42 +3,406 @@ package neuralNetwork;
 public class Stage {
 	
 	public static final double signalMultiplier = .1;
+	private static final Int8Kernel KERNEL = Int8Kernel.get();
+	// table over -SIGMOIDRANGE .. SIGMOIDRANGE with SIGMOIDSTEPS entries per unit, saturated outside:
+	private static final int SIGMOIDRANGE = 32;
+	private static final int SIGMOIDSTEPS = 32;
+	private static final double sigmoidTable[] = new double[2 * SIGMOIDRANGE * SIGMOIDSTEPS + 1];
+	// fixed point, see calcQuantized(): activations in units of signalMultiplier / QONE,
+	// sigmoidQ() from a table over sums -QRANGE .. QRANGE (about -51 .. 51), one entry per 2^QSHIFT
+	public static final int QONE = 1 << 14;
+	private static final int QSHIFT = 12;
+	private static final int QRANGE = 1 << 23;
+	private static final short sigmoidTableQ[] = new short[2 * (QRANGE >> QSHIFT) + 1];
+	static {
+		for (int i = 0; i < sigmoidTable.length; i++)
+			sigmoidTable[i] = signalMultiplier/(1+Math.exp(-((double) i / SIGMOIDSTEPS - SIGMOIDRANGE)/2d));
+		for (int i = 0; i < sigmoidTableQ.length; i++)
+			sigmoidTableQ[i] = (short) Math.round(QONE/(1+Math.exp(-((double) ((i << QSHIFT) - QRANGE) * signalMultiplier / QONE)/2d)));
+	}
 	
 	public Stage prev;
 	public double output[];
-	public byte coeffs[][];
+	// weights, row i (one per output) starts at offset + i * stride,
+	// its last entry is the bias. Usually a window into one array for the whole net.
+	public byte coeffs[];
+	public int offset = 0;
+	public int stride;
+	private float floatInput[]; // previous outputs as float for the Int8Kernel
+	public short qOutput[]; // outputs in fixed point, see calcQuantized()
+	public boolean symmetric = false; // row n-1-i is row i reversed, see setSymmetric()
+	// for calcSymmetric(): sums and differences of mirrored weights of each pair of rows,
+	// the same of the inputs (the bias included)
+	private double symSum[], symDiff[], inSum[], inDiff[];
+	private double sums[]; // weighted sums of calcSums(), kept up to date by updateSums()
+	public boolean pruned = false; // calc() uses only the weights kept by prune()
+	// kept weights of row i at prunedStart[i] .. prunedStart[i + 1] - 1 (compressed sparse rows)
+	private int prunedStart[];
+	private int prunedColumn[];
+	private byte prunedWeight[];
+	// modes of the network, see Inference:
+	private final boolean int8Kernel; // calc() with float activations and the Int8Kernel, if available
+	private final boolean fastSigmoid; // activate() from a table instead of Math.exp(), see sigmoidApprox()
 	
 	public Stage(Stage prev, int size){
+		this(prev, size, new byte[prev != null ? size * (prev.output.length + 1) : 0], 0);
+	}
+	
+	/**
+	 * C'tor for a stage whose weights lie in a given array
+	 * 
+	 * @param prev		previous stage, null for the input stage
+	 * @param size		number of outputs
+	 * @param coeffs	array holding the weights
+	 * @param offset	position of the first weight in coeffs
+	 */
+	public Stage(Stage prev, int size, byte coeffs[], int offset){
+		this(prev, size, coeffs, offset, Inference.EXACT);
+	}
+	
+	/**
+	 * Same like Stage(prev, size, coeffs, offset), calculating in the given mode
+	 * 
+	 * @param inference	mode of the network, only int8Kernel and fastSigmoid are used here
+	 */
+	public Stage(Stage prev, int size, byte coeffs[], int offset, Inference inference){
+		int8Kernel = inference.int8Kernel;
+		fastSigmoid = inference.fastSigmoid;
 		this.prev = prev;
 		output = new double[size];
-		if (prev != null)
-			coeffs = new byte[size][prev.output.length+1];
-		else
-			coeffs = new byte[0][0];
+		stride = prev != null ? prev.output.length + 1 : 0;
+		qOutput = new short[size];
+		bind(coeffs, offset);
 	}
+	
+	/**
+	 * Uses the weights in the given array from now on, nothing is copied
+	 */
+	public void bind(byte coeffs[], int offset){
+		this.coeffs = coeffs;
+		this.offset = offset;
+	}
+	
+	/**
+	 * @return number of weights including the biases
+	 */
+	public int numberOfCoeffs(){
+		return output.length * stride;
+	}
+	
+	/**
+	 * @return weight from input j to output i, j = inputs is the bias
+	 */
+	public byte coeff(int i, int j){
+		return coeffs[offset + i * stride + j];
+	}
+	
 	/**
 	 * calculates the outputs based on the input values
 	 */
 	public void calc(){
 		if (prev == null) return;
-		for (int i = 0; i < coeffs.length; i++){
+		if (int8Kernel && KERNEL != null) {
+			calcInt8();
+			return;
+		}
+		if (pruned) {
+			calcPruned();
+			return;
+		}
+		if (symmetric) {
+			calcSymmetric();
+			return;
+		}
+		double in[] = prev.output;
+		int inputs = stride - 1;
+		for (int i = 0; i < output.length; i++){
+			int row = offset + i * stride;
+			double sum = 0;
+			for (int j = 0; j < inputs; j++){
+				sum += coeffs[row + j]*in[j];
+			}
+			sum += coeffs[row + inputs]*signalMultiplier;  //constant bias
+			output[i] = activate(sum);
+		}
+	}
+	/**
+	 * same like calc() when only the given inputs are nonzero, the other
+	 * columns are skipped. Gives the same result when index is ascending.
+	 * With the Int8Kernel or pruned weights it is calc() on the complete
+	 * input, so the kernel gives the same outputs on both ways.
+	 * 
+	 * @param index	positions of the nonzero inputs
+	 * @param value	their values
+	 * @param count	number of nonzero inputs
+	 */
+	public void calcSparse(int index[], double value[], int count){
+		if (pruned || int8Kernel && KERNEL != null) { // the complete input is in prev.output as well
+			calc();
+			return;
+		}
+		int inputs = stride - 1;
+		if (symmetric) {
+			int n = output.length;
+			for (int i = 0; i < n / 2; i++){
+				int row = offset + i * stride;
+				int last = row + inputs;
+				double sum = 0, mirrored = 0;
+				for (int k = 0; k < count; k++){
+					sum += coeffs[row + index[k]]*value[k];
+					mirrored += coeffs[last - index[k]]*value[k];
+				}
+				output[i] = activate(sum + coeffs[last]*signalMultiplier);
+				output[n - 1 - i] = activate(mirrored + coeffs[row]*signalMultiplier);
+			}
+			return;
+		}
+		for (int i = 0; i < output.length; i++){
+			int row = offset + i * stride;
+			double sum = 0;
+			for (int k = 0; k < count; k++){
+				sum += coeffs[row + index[k]]*value[k];
+			}
+			sum += coeffs[row + inputs]*signalMultiplier;  //constant bias
+			output[i] = activate(sum);
+		}
+	}
+	/**
+	 * Switches calc() and calcSparse() to the symmetric versions, for weights
+	 * where row n-1-i is row i reversed (the bias included, so the bias of
+	 * row n-1-i is the first weight of row i). Call again after the weights
+	 * changed.
+	 */
+	public void setSymmetric(boolean symmetric){
+		this.symmetric = symmetric;
+		if (!symmetric)
+			return;
+		int half = stride / 2;
+		symSum = new double[output.length / 2 * half];
+		symDiff = new double[output.length / 2 * half];
+		inSum = new double[half];
+		inDiff = new double[half];
+		for (int i = 0; i < output.length / 2; i++){
+			int row = offset + i * stride;
+			for (int j = 0; j < half; j++){
+				symSum[i * half + j] = coeffs[row + j] + coeffs[row + stride - 1 - j];
+				symDiff[i * half + j] = coeffs[row + j] - coeffs[row + stride - 1 - j];
+			}
+		}
+	}
+	/**
+	 * same like calc() for symmetric weights. With w row i and x the inputs
+	 * followed by the bias input, output i is w.x and output n-1-i is w
+	 * times x reversed. For a pair of mirrored columns j, k that is
+	 * ((wj+wk)(xj+xk) + (wj-wk)(xj-xk)) / 2 and the same with minus, so each
+	 * pair of outputs takes one multiply-add per column instead of two.
+	 * Only the rounding differs from calc().
+	 */
+	private void calcSymmetric(){
+		double in[] = prev.output;
+		int inputs = stride - 1;
+		int half = stride / 2;
+		int n = output.length;
+		for (int j = 0; j < half; j++){
+			double mirrored = j == 0 ? signalMultiplier : in[inputs - j];  //constant bias
+			inSum[j] = in[j] + mirrored;
+			inDiff[j] = in[j] - mirrored;
+		}
+		for (int i = 0; i < n / 2; i++){
+			int r = i * half;
+			double sum = 0, diff = 0;
+			for (int j = 0; j < half; j++){
+				sum += symSum[r + j]*inSum[j];
+				diff += symDiff[r + j]*inDiff[j];
+			}
+			double middle = stride % 2 == 1 ? coeffs[offset + i * stride + half]*in[half] : 0;
+			output[i] = activate((sum + diff) / 2 + middle);
+			output[n - 1 - i] = activate((sum - diff) / 2 + middle);
+		}
+	}
+	/**
+	 * Drops the synapses with |weight| < threshold, like display() does not
+	 * draw them: the kept ones are copied into compressed sparse rows that
+	 * calc() works through instead of the full rows. The biases are always
+	 * kept. Call again after the weights changed.
+	 * 
+	 * @param threshold	smallest weight kept, 0 to use the full rows again
+	 * @return			number of synapses kept, biases not counted
+	 */
+	public int prune(int threshold){
+		int inputs = stride - 1;
+		pruned = threshold > 0;
+		if (!pruned)
+			return output.length * inputs;
+		int kept = 0;
+		for (int i = 0; i < output.length; i++){
+			for (int j = 0; j < inputs; j++){
+				if (Math.abs(coeff(i, j)) >= threshold)
+					kept++;
+			}
+		}
+		// arrays of an earlier prune() are reused if large enough:
+		if (prunedStart == null || prunedStart.length != output.length + 1)
+			prunedStart = new int[output.length + 1];
+		if (prunedColumn == null || prunedColumn.length < kept){
+			prunedColumn = new int[kept];
+			prunedWeight = new byte[kept];
+		}
+		int k = 0;
+		for (int i = 0; i < output.length; i++){
+			prunedStart[i] = k;
+			for (int j = 0; j < inputs; j++){
+				if (Math.abs(coeff(i, j)) >= threshold){
+					prunedColumn[k] = j;
+					prunedWeight[k++] = coeff(i, j);
+				}
+			}
+		}
+		prunedStart[output.length] = k;
+		return kept;
+	}
+	/**
+	 * same like calc() with the weights kept by prune()
+	 */
+	private void calcPruned(){
+		double in[] = prev.output;
+		int inputs = stride - 1;
+		for (int i = 0; i < output.length; i++){
 			double sum = 0;
-			for (int j = 0; j < coeffs[0].length-1; j++){
-				sum += coeffs[i][j]*prev.output[j];
+			for (int k = prunedStart[i]; k < prunedStart[i + 1]; k++){
+				sum += prunedWeight[k]*in[prunedColumn[k]];
+			}
+			sum += coeffs[offset + i * stride + inputs]*signalMultiplier;  //constant bias
+			output[i] = activate(sum);
+		}
+	}
+	/**
+	 * same like calc(), keeps the weighted sums for updateSums()
+	 */
+	public void calcSums(){
+		if (sums == null)
+			sums = new double[output.length];
+		double in[] = prev.output;
+		int inputs = stride - 1;
+		for (int i = 0; i < output.length; i++){
+			int row = offset + i * stride;
+			double sum = 0;
+			for (int j = 0; j < inputs; j++){
+				sum += coeffs[row + j]*in[j];
+			}
+			sum += coeffs[row + inputs]*signalMultiplier;  //constant bias
+			sums[i] = sum;
+			output[i] = activate(sum);
+		}
+	}
+	/**
+	 * updates the outputs of calcSums() after some inputs changed, only
+	 * their columns are looked at
+	 * 
+	 * @param index	positions of the changed inputs
+	 * @param delta	by how much they changed
+	 * @param count	number of changed inputs
+	 */
+	public void updateSums(int index[], double delta[], int count){
+		for (int i = 0; i < output.length; i++){
+			int row = offset + i * stride;
+			double sum = sums[i];
+			for (int k = 0; k < count; k++){
+				sum += coeffs[row + index[k]]*delta[k];
+			}
+			sums[i] = sum;
+			output[i] = activate(sum);
+		}
+	}
+	/**
+	 * converts output to qOutput, for the input stage of a quantized net
+	 */
+	public void quantize(){
+		for (int i = 0; i < output.length; i++){
+			double q = Math.rint(output[i] / signalMultiplier * QONE);
+			qOutput[i] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, q));
+		}
+	}
+	/**
+	 * same like calc() in fixed point: 16 bit activations, 32 bit sums (which
+	 * cannot overflow below 500 inputs) and sigmoidQ(). Fills output as well.
+	 */
+	public void calcQuantized(){
+		short in[] = prev.qOutput;
+		int inputs = stride - 1;
+		for (int i = 0; i < output.length; i++){
+			int row = offset + i * stride;
+			int sum = 0;
+			for (int j = 0; j < inputs; j++){
+				sum += coeffs[row + j]*in[j];
 			}
-			sum += coeffs[i][coeffs[0].length-1]*signalMultiplier;  //constant bias
-			output[i] = sigmoid(sum);
+			sum += coeffs[row + inputs]*QONE;  //constant bias
+			int q = sigmoidQ(sum);
+			qOutput[i] = (short) q;
+			output[i] = q * (signalMultiplier / QONE);
 		}
 	}
+	/**
+	 * same like calc(), using the Int8Kernel
+	 */
+	private void calcInt8(){
+		int inputs = stride - 1;
+		if (floatInput == null)
+			floatInput = new float[inputs];
+		Int8Kernel.toFloat(prev.output, floatInput);
+		for (int i = 0; i < output.length; i++){
+			int row = offset + i * stride;
+			float sum = KERNEL.dot(coeffs, row, floatInput, inputs);
+			sum += coeffs[row + inputs]*(float)signalMultiplier;  //constant bias
+			output[i] = activate(sum);
+		}
+	}
+	/**
+	 * sigmoid() or sigmoidApprox(), depending on the mode
+	 */
+	private double activate(double x) {
+		return fastSigmoid ? sigmoidApprox(x) : sigmoid(x);
+	}
 	public static double sigmoid(double x) {
 		return signalMultiplier/(1+Math.exp(-x/2d));  //range: 0 .. multiplier
 	}
+	/**
+	 * sigmoid() by linear interpolation in a table, without Math.exp().
+	 * The absolute error is below 3e-7 (about 3e-6 of the output range):
+	 * interpolation error h^2/8 * max|sigmoid''| with h = 1/32 inside the
+	 * table, and multiplier * (1 - 1/(1+e^-16)) = 1.1e-8 outside.
+	 */
+	public static double sigmoidApprox(double x) {
+		if (x <= -SIGMOIDRANGE)
+			return sigmoidTable[0];
+		if (x >= SIGMOIDRANGE)
+			return sigmoidTable[sigmoidTable.length - 1];
+		double p = (x + SIGMOIDRANGE) * SIGMOIDSTEPS;
+		int i = (int) p;
+		return sigmoidTable[i] + (p - i) * (sigmoidTable[i + 1] - sigmoidTable[i]);
+	}
+	/**
+	 * sigmoid() in fixed point, by linear interpolation in a table
+	 * 
+	 * @param sum	weighted sum in units of signalMultiplier / QONE
+	 * @return		sigmoid in units of signalMultiplier / QONE, 0 .. QONE
+	 */
+	public static int sigmoidQ(int sum) {
+		if (sum <= -QRANGE)
+			return sigmoidTableQ[0];
+		if (sum >= QRANGE)
+			return sigmoidTableQ[sigmoidTableQ.length - 1];
+		int p = sum + QRANGE;
+		int i = p >> QSHIFT;
+		int frac = p & ((1 << QSHIFT) - 1);
+		return sigmoidTableQ[i] + (((sigmoidTableQ[i + 1] - sigmoidTableQ[i]) * frac + (1 << (QSHIFT - 1))) >> QSHIFT);
+	}
 	public String toString(){
 		String k = "[";
-		for (int i = 0; i< coeffs.length; i++){
+		for (int i = 0; i< output.length && stride > 0; i++){
 			k += "[";
-			for (int j = 0; j < coeffs[0].length; j++){
-				k += Byte.toString(coeffs[i][j])+" ";
+			for (int j = 0; j < stride; j++){
+				k += Byte.toString(coeff(i, j))+" ";
 			}
 			k += "]\n ";
 		}
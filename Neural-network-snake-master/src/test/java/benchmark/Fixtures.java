@@ -0,0 +1,123 @@
+package benchmark;
+
+import gameEngine.ESnake;
+import gameEngine.GATrainer;
+import gameEngine.PhysicalCircle;
+import gameEngine.SegmentStore;
+import gameEngine.Snake;
+import gameEngine.World;
+
+import java.util.Random;
+
+import neuralNetwork.ESNet;
+import neuralNetwork.Inference;
+import neuralNetwork.NeuralNet;
+import neuralNetwork.Stage;
+
+public class Fixtures {
+	/**
+	 * Networks, inputs, worlds and snakes from fixed seeds, shared by the
+	 * JMH benchmarks (jmh/) and the tests, so every run works on the same
+	 * data.
+	 */
+
+	/**
+	 * Network of the GA snakes with random weights
+	 */
+	public static NeuralNet randomNet(long seed) {
+		return randomNet(seed, Inference.EXACT);
+	}
+
+	/**
+	 * Same like randomNet(seed), calculating in the given mode
+	 */
+	public static NeuralNet randomNet(long seed, Inference inference) {
+		byte coeffs[] = new byte[NeuralNet.calcNumberOfCoeffs(Snake.stageSizes, false)];
+		new Random(seed).nextBytes(coeffs);
+		NeuralNet net = new NeuralNet(Snake.stageSizes, inference);
+		net.loadCoeffs(coeffs);
+		return net;
+	}
+
+	/**
+	 * Network of the ES snakes with random weights
+	 */
+	public static ESNet randomESNet(long seed) {
+		return randomESNet(seed, Inference.EXACT);
+	}
+
+	/**
+	 * Same like randomESNet(seed), calculating in the given mode
+	 */
+	public static ESNet randomESNet(long seed, Inference inference) {
+		byte coeffs[] = new byte[ESNet.calcNumberOfCoeffs(ESnake.stageSizes)];
+		new Random(seed).nextBytes(coeffs);
+		ESNet net = new ESNet(ESnake.stageSizes, inference);
+		net.loadCoeffs(coeffs);
+		return net;
+	}
+
+	/**
+	 * Input like the one of a snake: each visual cell sees one type
+	 */
+	public static double[] randomInput(long seed) {
+		Random random = new Random(seed);
+		int cells = Snake.FOVDIVISIONS * 2;
+		double input[] = new double[Snake.FIRSTSTAGESIZE];
+		for (int i = 0; i < cells; i++)
+			input[random.nextInt(3) * cells + i] = random.nextDouble() * Stage.signalMultiplier;
+		return input;
+	}
+
+	/**
+	 * 2000x1200 world with six nibbles at fixed places, none of them close
+	 * to where the benchmark snakes are put
+	 */
+	public static World benchmarkWorld() {
+		World world = new World();
+		world.width = 2000;
+		world.height = 1200;
+		Random random = new Random(6);
+		while (world.getNibbles().size() < GATrainer.defaultNibbles) {
+			double x = 50 + random.nextDouble() * (world.width - 100);
+			double y = 50 + random.nextDouble() * (world.height - 100);
+			if (y < 500)
+				continue;
+			world.getNibbles().add(new PhysicalCircle(x, y, World.globalCircleRadius));
+		}
+		world.update(); // marks the nibble grid as outdated
+		return world;
+	}
+
+	/**
+	 * Snake laid out in rows of 45 segments going back and forth, the head
+	 * at (100, 100) looking down
+	 */
+	public static Snake benchmarkSnake(World world, int length) {
+		Snake snake = new Snake(null, world);
+		Random random = new Random(7);
+		random.nextBytes(snake.dna.data);
+		snake.reloadFromDNA();
+		layOut(snake.snakeSegments, length);
+		snake.angle = Math.PI / 2;
+		return snake;
+	}
+
+	/**
+	 * Replaces the segments by rows of 45 segments going back and forth,
+	 * the head at (100, 100)
+	 *
+	 * @param s	segments of a snake of any kind
+	 * @param length	number of segments
+	 */
+	public static void layOut(SegmentStore s, int length) {
+		s.clear();
+		int perRow = 45;
+		double d = 2 * World.globalCircleRadius;
+		for (int i = 0; i < length; i++) {
+			int row = i / perRow, col = i % perRow;
+			double x = row % 2 == 0 ? 100 + col * d : 100 + (perRow - 1 - col) * d;
+			s.add(x, 100 + row * 60, World.globalCircleRadius);
+		}
+	}
+}
@@ -0,0 +1,133 @@
+package gameEngine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import benchmark.Fixtures;
+import qLearning.QTable;
+
+public class AllocationTest {
+	/**
+	 * A tick of the world and a snake allocates nothing once the JIT has
+	 * warmed up, for the GA, ES and Q-learning snakes.
+	 *
+	 * Each snake lies in Fixtures.benchmarkWorld() like in the benchmarks and
+	 * is restored before every tick, so no tick eats, grows or dies. After
+	 * WARMUP ticks, every one of ROUNDS rounds of TICKS ticks has to leave
+	 * the bytes allocated by this thread (com.sun.management.ThreadMXBean)
+	 * unchanged.
+	 */
+	private static final int LENGTH = 64;
+	private static final int WARMUP = 30000; // ticks until the JIT has compiled the tick (and removed what escape analysis can)
+	private static final int ROUNDS = 5;
+	private static final int TICKS = 10000;
+
+	private static com.sun.management.ThreadMXBean threads;
+
+	@BeforeAll
+	static void enableAllocatedMemory() {
+		threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		assumeTrue(threads.isThreadAllocatedMemorySupported(), "allocated bytes are not measured by this JVM");
+		threads.setThreadAllocatedMemoryEnabled(true);
+	}
+
+	@Test
+	void snakeTickAllocatesNothing() {
+		World world = Fixtures.benchmarkWorld();
+		final Snake snake = Fixtures.benchmarkSnake(world, LENGTH);
+		assertNoAllocation(world, new Ticker(snake.snakeSegments) {
+			void tick(World world) {
+				snake.angle = Math.PI / 2;
+				snake.isDead = false;
+				snake.health = Snake.healthbonus;
+				snake.score = 0;
+				snake.update(world);
+			}
+		});
+	}
+
+	@Test
+	void eSnakeTickAllocatesNothing() {
+		World world = Fixtures.benchmarkWorld();
+		final ESnake snake = new ESnake(null, world);
+		Fixtures.layOut(snake.snakeSegments, LENGTH);
+		assertNoAllocation(world, new Ticker(snake.snakeSegments) {
+			void tick(World world) {
+				snake.angle = Math.PI / 2;
+				snake.isDead = false;
+				snake.health = ESnake.healthbonus;
+				snake.score = 0;
+				snake.update(world);
+			}
+		});
+	}
+
+	@Test
+	void qSnakeTickAllocatesNothing() {
+		World world = Fixtures.benchmarkWorld();
+		final QSnake snake = new QSnake(new QTable(), world);
+		Fixtures.layOut(snake.snakeSegments, LENGTH);
+		assertNoAllocation(world, new Ticker(snake.snakeSegments) {
+			void tick(World world) {
+				snake.angle = Math.PI / 2;
+				snake.isDead = false;
+				snake.health = QSnake.healthbonus;
+				snake.score = 0;
+				snake.update(world, true);
+			}
+		});
+	}
+
+	/**
+	 * One tick of one kind of snake, restored to its first layout before
+	 */
+	static abstract class Ticker {
+		SegmentStore s;
+		double x[], y[], rad[];
+		int size;
+
+		Ticker(SegmentStore s) {
+			this.s = s;
+			x = s.x.clone();
+			y = s.y.clone();
+			rad = s.rad.clone();
+			size = s.size;
+		}
+
+		void restore() {
+			System.arraycopy(x, 0, s.x, 0, size);
+			System.arraycopy(y, 0, s.y, 0, size);
+			System.arraycopy(rad, 0, s.rad, 0, size);
+			for (int i = 0; i < size; i++) {
+				s.vx[i] = 0;
+				s.vy[i] = 0;
+			}
+			s.size = size;
+		}
+
+		abstract void tick(World world);
+	}
+
+	private static void assertNoAllocation(World world, Ticker ticker) {
+		long id = Thread.currentThread().getId();
+		for (int i = 0; i < WARMUP; i++) {
+			ticker.restore();
+			world.update();
+			ticker.tick(world);
+		}
+		for (int round = 0; round < ROUNDS; round++) {
+			long before = threads.getThreadAllocatedBytes(id);
+			for (int i = 0; i < TICKS; i++) {
+				ticker.restore();
+				world.update();
+				ticker.tick(world);
+			}
+			assertEquals(0, threads.getThreadAllocatedBytes(id) - before, "bytes allocated by " + TICKS + " ticks in round " + round);
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package gameEngine;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import genetics.DNA;
+import helpers.RandomStreams;
+
+import org.junit.jupiter.api.Test;
+
+import neuralNetwork.Inference;
+
+public class FastSigmoidFitnessTest {
+	/**
+	 * Inference.fastSigmoid does not change how the snakes play: a champion
+	 * trained from a fixed seed lives LIVES times with exact networks and
+	 * LIVES times with the fast sigmoid, from the same seed.
+	 *
+	 * A life is chaotic, the tiny output differences make the snakes
+	 * collide differently after a few hundred ticks, so single lives do
+	 * not match. The mean fitness of the two runs has to agree within
+	 * FITNESSSIGMAS standard errors of their difference, and in
+	 * STEERINGLIVES lockstep lives the steering of the fast network may
+	 * differ from the exact one on the same input by at most
+	 * STEERINGTOLERANCE of the maximum angular speed.
+	 */
+	private static final long SEED = 3;
+	private static final int GENERATIONS = 15;
+	private static final int LIVES = 128;
+	private static final int STEERINGLIVES = 16;
+	private static final long MAXTICKS = 2000;
+	private static final double FITNESSSIGMAS = 3;
+	private static final double STEERINGTOLERANCE = 1e-3;
+	private static final Inference FAST = Inference.EXACT.withFastSigmoid(true);
+
+	private static DNA champion = null;
+
+	@Test
+	void meanFitnessIsTheSame() {
+		double exact[] = evaluate(Inference.EXACT);
+		double fast[] = evaluate(FAST);
+		double error = Math.sqrt(squaredError(exact) + squaredError(fast));
+		double difference = mean(fast) - mean(exact);
+		assertTrue(Math.abs(difference) <= FITNESSSIGMAS * error,
+				"mean fitness " + mean(fast) + " instead of " + mean(exact) + ", standard error " + error);
+	}
+
+	@Test
+	void steeringIsTheSame() {
+		RandomStreams.setSeed(SEED + 1);
+		int ticks = 0;
+		for (int life = 0; life < STEERINGLIVES; life++) {
+			World world = new World();
+			world.width = 1000;
+			world.height = 600;
+			world.newNibble(GATrainer.defaultNibbles);
+			Snake snake = new Snake(champion(), world, FAST);
+			Snake twin = new Snake(champion(), world, Inference.EXACT);
+			for (long t = 0; t < MAXTICKS && !snake.isDead; t++) {
+				world.update();
+				double steering = snake.brain(world);
+				// the input the fast network just saw, see NeuralNet.display()
+				double output[] = twin.brainNet.calc(snake.brainNet.stages[0].output);
+				double exact = twin.steer(output[0], output[1]);
+				assertTrue(Math.abs(steering - exact) <= STEERINGTOLERANCE * Snake.maximumAngularSpeed,
+						"life " + life + ", tick " + t + ": steering " + steering + " instead of " + exact);
+				snake.update(world, steering);
+				ticks++;
+			}
+		}
+		assertTrue(ticks >= STEERINGLIVES * 100, "champion only lived " + ticks + " ticks");
+	}
+
+	/**
+	 * Best DNA of a ParallelGATrainer after GENERATIONS, trained once
+	 */
+	private static synchronized DNA champion() {
+		if (champion == null) {
+			RandomStreams.setSeed(SEED);
+			ParallelGATrainer trainer = new ParallelGATrainer(64, Runtime.getRuntime().availableProcessors(), 1);
+			World world = new World();
+			world.width = 1000;
+			world.height = 600;
+			for (int g = 0; g < GENERATIONS; g++)
+				trainer.tick(world);
+			trainer.evaluator.shutdown();
+			champion = trainer.bestDna;
+		}
+		return champion;
+	}
+
+	/**
+	 * Fitness of LIVES lives of the champion, each alone in a world
+	 */
+	private static double[] evaluate(Inference inference) {
+		DNA lives[] = new DNA[LIVES];
+		for (int i = 0; i < LIVES; i++)
+			lives[i] = champion();
+		RandomStreams.setSeed(SEED + 1);
+		ParallelEvaluator evaluator = new ParallelEvaluator(Runtime.getRuntime().availableProcessors(), 1, inference);
+		evaluator.maxTicks = MAXTICKS;
+		double fitness[] = evaluator.evaluate(lives, 1000, 600);
+		evaluator.shutdown();
+		return fitness;
+	}
+
+	private static double mean(double x[]) {
+		double sum = 0;
+		for (double v : x)
+			sum += v;
+		return sum / x.length;
+	}
+
+	/**
+	 * Squared standard error of the mean of x
+	 */
+	private static double squaredError(double x[]) {
+		double mean = mean(x);
+		double sum = 0;
+		for (double v : x)
+			sum += (v - mean) * (v - mean);
+		return sum / (x.length - 1) / x.length;
+	}
+}
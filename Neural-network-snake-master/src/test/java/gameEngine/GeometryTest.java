@@ -0,0 +1,204 @@
+package gameEngine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class GeometryTest {
+	/**
+	 * The circle physics of PhysicalCircle and SegmentStore, which scale the
+	 * difference vector, against the former formulation through atan2() and
+	 * cos()/sin(), on random circles from a fixed seed.
+	 *
+	 * Half of the cases place the circles anywhere, half of them close enough
+	 * to overlap, and every 100th case puts both centres on the same point
+	 * (both formulations then move the circle in +x direction). Positions
+	 * and speeds have to agree within EPSILON, relative to the value if that
+	 * is above 1. Differences below about 1e-154 underflow when squared and
+	 * count as coincident, positions in a world never get there.
+	 */
+	private static final int CASES = 1000000;
+	private static final double EPSILON = 1e-9;
+
+	private static final int FOLLOWSTATIC = 0, FOLLOWBOUNCY = 1, COLLIDESTATIC = 2, COLLIDEBOUNCY = 3;
+
+	@Test
+	void circleRoutinesMatchAngleFormulation() {
+		Random random = new Random(9);
+		for (int n = 0; n < CASES; n++) {
+			double o[] = randomCircle(random);
+			double c[] = randomCircleNear(random, o, n);
+			double speed = 1 + random.nextDouble() * 9;
+			for (int r = FOLLOWSTATIC; r <= COLLIDEBOUNCY; r++) {
+				PhysicalCircle circle = circle(c);
+				PhysicalCircle other = circle(o);
+				if (r == FOLLOWSTATIC)
+					circle.followStatic(other);
+				else if (r == FOLLOWBOUNCY)
+					circle.followBouncy(other);
+				else if (r == COLLIDESTATIC)
+					circle.collideStatic(other);
+				else
+					circle.collideBouncy(other, speed);
+				assertClose(reference(r, c, o, speed), new double[] { circle.x, circle.y, circle.vx, circle.vy }, "PhysicalCircle", r, n);
+			}
+		}
+	}
+
+	@Test
+	void segmentRoutinesMatchAngleFormulation() {
+		Random random = new Random(9);
+		for (int n = 0; n < CASES; n++) {
+			double o[] = randomCircle(random);
+			double c[] = randomCircleNear(random, o, n);
+			for (int r = FOLLOWSTATIC; r <= COLLIDESTATIC; r++) { // segments never bounce off each other
+				SegmentStore store = store(c, o);
+				if (r == FOLLOWSTATIC)
+					store.followStatic(0, 1);
+				else if (r == FOLLOWBOUNCY)
+					store.followBouncy(0, 1);
+				else
+					store.collideStatic(0, 1);
+				assertClose(reference(r, c, o, 0), new double[] { store.x[0], store.y[0], store.vx[0], store.vy[0] }, "SegmentStore", r, n);
+			}
+		}
+	}
+
+	@Test
+	void isCollidingMatchesDistance() {
+		Random random = new Random(9);
+		for (int n = 0; n < CASES; n++) {
+			double o[] = randomCircle(random);
+			double c[] = randomCircleNear(random, o, n);
+			double threshold = random.nextDouble() * 100 - 50;
+			double d = Math.sqrt((c[0] - o[0]) * (c[0] - o[0]) + (c[1] - o[1]) * (c[1] - o[1]));
+			double limit = c[4] + o[4] + threshold;
+			if (Math.abs(d - limit) <= 1e-9 * (c[4] + o[4] + Math.abs(threshold)))
+				continue; // within rounding of the limit
+			boolean expected = d < limit;
+			SegmentStore store = store(c, o);
+			assertEquals(expected, circle(c).isColliding(circle(o), threshold), "PhysicalCircle, case " + n);
+			assertEquals(expected, store.isColliding(0, 1, threshold), "SegmentStore segments, case " + n);
+			assertEquals(expected, store.isColliding(0, circle(o), threshold), "SegmentStore and circle, case " + n);
+		}
+	}
+
+	@Test
+	void coincidentCentresMoveInPlusX() {
+		PhysicalCircle circle = new PhysicalCircle(100, 200, 20);
+		circle.followStatic(new PhysicalCircle(100, 200, 15));
+		assertEquals(135, circle.x);
+		assertEquals(200, circle.y);
+		circle = new PhysicalCircle(100, 200, 20);
+		circle.collideStatic(new PhysicalCircle(100, 200, 15));
+		assertEquals(135, circle.x);
+		assertEquals(200, circle.y);
+		SegmentStore store = new SegmentStore(2);
+		store.add(100, 200, 20);
+		store.add(100, 200, 15);
+		store.followStatic(0, 1);
+		assertEquals(135, store.x[0]);
+		assertEquals(200, store.y[0]);
+	}
+
+	/**
+	 * @return x, y, vx, vy, rad of a circle anywhere in a 2000x1200 world
+	 */
+	private static double[] randomCircle(Random random) {
+		return new double[] { random.nextDouble() * 2000, random.nextDouble() * 1200, random.nextDouble() * 10 - 5, random.nextDouble() * 10 - 5,
+				1 + random.nextDouble() * 39 };
+	}
+
+	/**
+	 * @return circle on the centre of o for every 100th case, else anywhere
+	 *         or close enough to overlap o, in turns
+	 */
+	private static double[] randomCircleNear(Random random, double o[], int n) {
+		double c[] = { 0, 0, random.nextDouble() * 10 - 5, random.nextDouble() * 10 - 5, 1 + random.nextDouble() * 39 };
+		if (n % 100 == 0) {
+			c[0] = o[0];
+			c[1] = o[1];
+		} else if (n % 2 == 0) {
+			c[0] = random.nextDouble() * 2000;
+			c[1] = random.nextDouble() * 1200;
+		} else {
+			double d = random.nextDouble() * 2 * (c[4] + o[4]);
+			double a = random.nextDouble() * 2 * Math.PI;
+			c[0] = o[0] + d * Math.cos(a);
+			c[1] = o[1] + d * Math.sin(a);
+		}
+		return c;
+	}
+
+	/**
+	 * The routines as they were computed through the angle between the circles
+	 *
+	 * @param routine	FOLLOWSTATIC .. COLLIDEBOUNCY
+	 * @param c	x, y, vx, vy, rad of the moved circle
+	 * @param o	x, y, vx, vy, rad of the other circle
+	 * @param speed	speed of collideBouncy
+	 * @return x, y, vx, vy of the moved circle
+	 */
+	private static double[] reference(int routine, double c[], double o[], double speed) {
+		double x = c[0], y = c[1], vx = c[2], vy = c[3];
+		double s = c[4] + o[4];
+		double a = Math.atan2(y - o[1], x - o[0]);
+		double d = Math.sqrt((x - o[0]) * (x - o[0]) + (y - o[1]) * (y - o[1]));
+		if (routine == FOLLOWSTATIC) {
+			x = o[0] + s * Math.cos(a);
+			y = o[1] + s * Math.sin(a);
+		} else if (routine == FOLLOWBOUNCY) {
+			vx += (o[0] + s * Math.cos(a) - x) / s / 32;
+			vy += (o[1] + s * Math.sin(a) - y) / s / 32;
+			x += (o[0] + s * Math.cos(a) - x) / s * 24 + o[2] * .24;
+			y += (o[1] + s * Math.sin(a) - y) / s * 24 + o[3] * .24;
+		} else if (d < s) {
+			x = o[0] + s * Math.cos(a);
+			y = o[1] + s * Math.sin(a);
+			if (routine == COLLIDEBOUNCY) {
+				vx -= (o[0] - x) * 2 / d * speed / 5;
+				vy -= (o[1] - y) * 2 / d * speed / 5;
+			}
+		}
+		return new double[] { x, y, vx, vy };
+	}
+
+	private static PhysicalCircle circle(double c[]) {
+		PhysicalCircle circle = new PhysicalCircle(c[0], c[1], c[4]);
+		circle.vx = c[2];
+		circle.vy = c[3];
+		return circle;
+	}
+
+	/**
+	 * @return store with c as segment 0 and o as segment 1
+	 */
+	private static SegmentStore store(double c[], double o[]) {
+		SegmentStore store = new SegmentStore(2);
+		store.add(c[0], c[1], c[4]);
+		store.add(o[0], o[1], o[4]);
+		store.vx[0] = c[2];
+		store.vy[0] = c[3];
+		store.vx[1] = o[2];
+		store.vy[1] = o[3];
+		return store;
+	}
+
+	/**
+	 * Infinite or NaN values (collideBouncy of coincident circles divides by
+	 * 0) have to be the same
+	 */
+	private static void assertClose(double expected[], double actual[], String what, int routine, int n) {
+		for (int i = 0; i < actual.length; i++) {
+			String message = what + " routine " + routine + ", case " + n + ", value " + i;
+			if (!Double.isFinite(expected[i]) || !Double.isFinite(actual[i]))
+				assertEquals(expected[i], actual[i], message);
+			else
+				assertTrue(Math.abs(actual[i] - expected[i]) <= EPSILON * Math.max(1, Math.abs(expected[i])),
+						message + ": " + actual[i] + " instead of " + expected[i]);
+		}
+	}
+}
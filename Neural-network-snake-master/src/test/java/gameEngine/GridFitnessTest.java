@@ -0,0 +1,161 @@
+package gameEngine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import helpers.RandomStreams;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class GridFitnessTest {
+	/**
+	 * The spatial grids (World.spatialGrids) do not change the game: the GA,
+	 * ES and SARSA populations are trained from the same seed once with the
+	 * grids and once scanning all segments and nibbles, and the fitness of
+	 * all snakes has to be the same after every tick.
+	 *
+	 * The trainers keep 100 nibbles (numNibbles), above
+	 * World.NIBBLEGRIDTHRESHOLD, so the nibble grid is used throughout; the segment grids are used
+	 * once a snake has grown to World.GRIDTHRESHOLD segments, which has to
+	 * happen in the run.
+	 */
+	private static final int TICKS = 10000;
+	private static final long SEED = 14;
+	private static final int NIBBLES = 100;
+
+	private final boolean spatialGrids = World.spatialGrids;
+
+	@AfterEach
+	void restoreGrids() {
+		World.spatialGrids = spatialGrids;
+	}
+
+	@Test
+	void gaFitnessIsTheSameWithoutGrids() {
+		assertSameFitness("ga");
+	}
+
+	@Test
+	void esFitnessIsTheSameWithoutGrids() {
+		assertSameFitness("es");
+	}
+
+	@Test
+	void sarsaFitnessIsTheSameWithoutGrids() {
+		assertSameFitness("sarsa");
+	}
+
+	private static void assertSameFitness(String method) {
+		World.spatialGrids = true;
+		Trace grids = run(method);
+		World.spatialGrids = false;
+		Trace scan = run(method);
+		assertTrue(grids.nibbleGridTicks == TICKS, "nibble grid used in " + grids.nibbleGridTicks + " ticks");
+		assertTrue(grids.longSnakeTicks > 0, "no snake grew to " + World.GRIDTHRESHOLD + " segments");
+		assertArrayEquals(scan.fitness, grids.fitness, "summed fitness per tick");
+	}
+
+	/**
+	 * Fitness of a population over the ticks of one run
+	 */
+	static class Trace {
+		double fitness[] = new double[TICKS]; // sum over the snakes after each tick
+		int longSnakeTicks = 0; // ticks with a snake of at least GRIDTHRESHOLD segments
+		int nibbleGridTicks = 0; // ticks after which the world used its nibble grid
+	}
+
+	/**
+	 * Access to the snakes of one kind of trainer
+	 */
+	static abstract class Population {
+		TrainingStrategy trainer;
+
+		abstract double fitness();
+
+		abstract int longest();
+	}
+
+	private static Trace run(String method) {
+		RandomStreams.setSeed(SEED);
+		Population population = population(method);
+		World world = new World();
+		world.width = 1000;
+		world.height = 600;
+		Trace trace = new Trace();
+		for (int t = 0; t < TICKS; t++) {
+			population.trainer.tick(world);
+			trace.fitness[t] = population.fitness();
+			if (population.longest() >= World.GRIDTHRESHOLD)
+				trace.longSnakeTicks++;
+			if (world.usesNibbleGrid())
+				trace.nibbleGridTicks++;
+		}
+		return trace;
+	}
+
+	private static Population population(String method) {
+		if (method.equals("es")) {
+			final ESTrainer es = new ESTrainer();
+			es.numNibbles = NIBBLES;
+			Population p = new Population() {
+				double fitness() {
+					double sum = 0;
+					for (ESnake s : es.snakes)
+						sum += s.getFitness();
+					return sum;
+				}
+
+				int longest() {
+					int longest = 0;
+					for (ESnake s : es.snakes)
+						longest = Math.max(longest, s.snakeSegments.size());
+					return longest;
+				}
+			};
+			p.trainer = es;
+			return p;
+		}
+		if (method.equals("sarsa")) {
+			final SarsaTrainer sarsa = new SarsaTrainer();
+			sarsa.numNibbles = NIBBLES;
+			Population p = new Population() {
+				double fitness() {
+					double sum = 0;
+					for (QSnake s : sarsa.snakes)
+						sum += s.getFitness();
+					return sum;
+				}
+
+				int longest() {
+					int longest = 0;
+					for (QSnake s : sarsa.snakes)
+						longest = Math.max(longest, s.snakeSegments.size());
+					return longest;
+				}
+			};
+			p.trainer = sarsa;
+			return p;
+		}
+		final GATrainer ga = new GATrainer();
+		ga.printProgress = false;
+		ga.numNibbles = NIBBLES;
+		Population p = new Population() {
+			double fitness() {
+				double sum = 0;
+				for (Snake s : ga.snakes)
+					sum += s.getFitness();
+				return sum;
+			}
+
+			int longest() {
+				int longest = 0;
+				for (Snake s : ga.snakes)
+					longest = Math.max(longest, s.snakeSegments.size());
+				return longest;
+			}
+		};
+		p.trainer = ga;
+		return p;
+	}
+}
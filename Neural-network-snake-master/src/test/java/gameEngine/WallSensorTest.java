@@ -0,0 +1,147 @@
+package gameEngine;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import helpers.DoubleMath;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class WallSensorTest {
+	/**
+	 * WallSensor.sense() against the walls as brain() saw them before: points
+	 * every OLDSTEP pixels along the borders, each seen by the visual cell its
+	 * angle falls into, the closest one per cell.
+	 *
+	 * The sampled distance of a cell can never be below the exact one, and it
+	 * is at most two steps above it (one step along a wall, or one on each
+	 * side of an unsampled corner) as long as the part of the walls inside
+	 * the cell is longer than that. Narrow cells close to a wall can lie
+	 * between two points, there the walls are sampled every FINESTEP pixels.
+	 */
+	private static final double WIDTH = 1000, HEIGHT = 600;
+	private static final int DIVISIONS = Snake.FOVDIVISIONS;
+	private static final double OLDSTEP = (int) (Snake.maximumSightDistance * Math.sin(Snake.fieldOfView / DIVISIONS)) / 20;
+	private static final double FINESTEP = 0.05;
+	private static final double MARGIN = 60; // distance from the walls at which every cell holds OLDSTEP points
+
+	private final WallSensor sensor = new WallSensor(Snake.fieldOfView, DIVISIONS);
+	private final double distances[] = new double[2 * DIVISIONS];
+
+	@Test
+	void randomHeadsMatchOldSampling() {
+		Random random = new Random(4);
+		for (int n = 0; n < 10000; n++) {
+			double x = MARGIN + random.nextDouble() * (WIDTH - 2 * MARGIN);
+			double y = MARGIN + random.nextDouble() * (HEIGHT - 2 * MARGIN);
+			double angle = random.nextDouble() * 2 * Math.PI;
+			assertWithin(x, y, angle, OLDSTEP);
+		}
+	}
+
+	@Test
+	void headsNearWallsMatchFineSampling() {
+		for (double offset : new double[] { 0.5, 2, 10, 30 }) {
+			for (int degrees = 0; degrees < 360; degrees += 10) {
+				double angle = Math.toRadians(degrees);
+				assertWithin(offset, HEIGHT / 2, angle, FINESTEP);
+				assertWithin(WIDTH - offset, HEIGHT / 2, angle, FINESTEP);
+				assertWithin(WIDTH / 2, offset, angle, FINESTEP);
+				assertWithin(WIDTH / 2, HEIGHT - offset, angle, FINESTEP);
+			}
+		}
+	}
+
+	@Test
+	void headsInCornersMatchFineSampling() {
+		for (double offset : new double[] { 0.5, 2, 10, 30 }) {
+			for (int degrees = 0; degrees < 360; degrees += 10) {
+				double angle = Math.toRadians(degrees);
+				assertWithin(offset, offset, angle, FINESTEP);
+				assertWithin(WIDTH - offset, offset, angle, FINESTEP);
+				assertWithin(offset, HEIGHT - offset, angle, FINESTEP);
+				assertWithin(WIDTH - offset, HEIGHT - offset, angle, FINESTEP);
+			}
+		}
+	}
+
+	/**
+	 * Close to the walls the old points can miss a cell, but they can never
+	 * show a wall closer than the sensor does
+	 */
+	@Test
+	void headsNearWallsNeverExceedOldSampling() {
+		Random random = new Random(4);
+		for (int n = 0; n < 2000; n++) {
+			double x = random.nextDouble() < .5 ? random.nextDouble() * MARGIN : WIDTH - random.nextDouble() * MARGIN;
+			double y = random.nextDouble() * HEIGHT;
+			double angle = random.nextDouble() * 2 * Math.PI;
+			double sampled[] = sampled(x, y, angle, OLDSTEP);
+			sense(x, y, angle);
+			for (int i = 0; i < distances.length; i++)
+				assertTrue(distances[i] <= sampled[i] + 1e-9, where(x, y, angle, i) + ": " + distances[i] + " above sampled " + sampled[i]);
+		}
+	}
+
+	private void assertWithin(double x, double y, double angle, double step) {
+		double sampled[] = sampled(x, y, angle, step);
+		sense(x, y, angle);
+		for (int i = 0; i < distances.length; i++) {
+			String message = where(x, y, angle, i) + ": " + distances[i] + " instead of sampled " + sampled[i];
+			assertTrue(distances[i] <= sampled[i] + 1e-9, message);
+			assertTrue(sampled[i] <= distances[i] + 2 * step, message);
+		}
+	}
+
+	/**
+	 * WallSensor.sense() into distances, limited to the sight distance like
+	 * the cells of brain()
+	 */
+	private void sense(double x, double y, double angle) {
+		sensor.sense(x, y, angle, WIDTH, HEIGHT, distances);
+		for (int i = 0; i < distances.length; i++)
+			distances[i] = Math.min(distances[i], Snake.maximumSightDistance);
+	}
+
+	/**
+	 * The former wall circles of brain(), every step pixels from 0 on each
+	 * wall, sorted into the cells by updateVisualInput()
+	 *
+	 * @return distance from the centre of the head to the closest point per
+	 *         cell (without the radius offset, which both sides share)
+	 */
+	private static double[] sampled(double x, double y, double angle, double step) {
+		double cells[] = new double[2 * DIVISIONS];
+		Arrays.fill(cells, Snake.maximumSightDistance);
+		for (double w = 0; w < WIDTH; w += step) {
+			see(cells, x, y, angle, w, 0);
+			see(cells, x, y, angle, w, HEIGHT);
+		}
+		for (double h = 0; h < HEIGHT; h += step) {
+			see(cells, x, y, angle, 0, h);
+			see(cells, x, y, angle, WIDTH, h);
+		}
+		return cells;
+	}
+
+	private static void see(double cells[], double x, double y, double angle, double px, double py) {
+		double d = Math.sqrt((px - x) * (px - x) + (py - y) * (py - y));
+		if (d >= Snake.maximumSightDistance)
+			return;
+		double a = DoubleMath.signedDoubleModulo(Math.atan2(py - y, px - x) - angle, Math.PI * 2);
+		int cell;
+		if (a >= 0 && a < Snake.fieldOfView)
+			cell = (int) (a * DIVISIONS / Snake.fieldOfView);
+		else if (a <= 0 && -a < Snake.fieldOfView)
+			cell = (int) (-a * DIVISIONS / Snake.fieldOfView) + DIVISIONS;
+		else
+			return;
+		cells[cell] = Math.min(cells[cell], d);
+	}
+
+	private static String where(double x, double y, double angle, int cell) {
+		return "head (" + x + ", " + y + "), angle " + angle + ", cell " + cell;
+	}
+}
@@ -0,0 +1,91 @@
+package neuralNetwork;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import gameEngine.Snake;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import benchmark.Fixtures;
+
+public class IncrementalTest {
+	/**
+	 * calcIncremental() at threshold 0 gives the outputs of calc(), in every
+	 * mode: on the dense double path up to the rounding of the updated
+	 * sums, in the modes it does not keep sums for (quantized, pruned,
+	 * symmetric, int8 kernel) exactly, since it is calc() there.
+	 * The inputs change like the vision of a snake, a few cells per step
+	 * and now and then all of them, for more than INCREMENTALRESYNC steps.
+	 */
+	private static final int NETWORKS = 20;
+	private static final int STEPS = NeuralNet.INCREMENTALRESYNC + 200;
+	private static final double TOLERANCE = 1e-9;
+
+	@Test
+	void exactMatchesCalc() {
+		assertMatchesCalc(Inference.EXACT, TOLERANCE);
+	}
+
+	@Test
+	void fastSigmoidMatchesCalc() {
+		assertMatchesCalc(Inference.EXACT.withFastSigmoid(true), TOLERANCE);
+	}
+
+	@Test
+	void quantizedMatchesCalc() {
+		assertMatchesCalc(Inference.EXACT.withQuantized(true), 0);
+	}
+
+	@Test
+	void prunedMatchesCalc() {
+		assertMatchesCalc(Inference.EXACT.withPruneThreshold(32), 0);
+	}
+
+	@Test
+	void int8KernelMatchesCalc() {
+		assertMatchesCalc(Inference.EXACT.withInt8Kernel(true), 0);
+	}
+
+	@Test
+	void symmetricMatchesCalc() {
+		for (int n = 0; n < NETWORKS; n++) {
+			byte coeffs[] = new byte[NeuralNet.calcNumberOfCoeffs(Snake.stageSizes, true)];
+			new Random(n).nextBytes(coeffs);
+			NeuralNet incremental = new NeuralNet(Snake.stageSizes);
+			incremental.loadCoeffsSymmetrical(coeffs);
+			NeuralNet net = new NeuralNet(Snake.stageSizes);
+			net.loadCoeffsSymmetrical(coeffs);
+			assertMatchesCalc(incremental, net, n, 0);
+		}
+	}
+
+	private static void assertMatchesCalc(Inference inference, double tolerance) {
+		for (int n = 0; n < NETWORKS; n++)
+			assertMatchesCalc(Fixtures.randomNet(n, inference), Fixtures.randomNet(n, inference), n, tolerance);
+	}
+
+	/**
+	 * Feeds the same input sequence to calcIncremental() of one network and
+	 * calc() of another with the same weights, calc() would reset the sums
+	 */
+	private static void assertMatchesCalc(NeuralNet incremental, NeuralNet net, int seed, double tolerance) {
+		Random random = new Random(seed);
+		double input[] = Fixtures.randomInput(random.nextLong());
+		for (int step = 0; step < STEPS; step++) {
+			if (random.nextInt(50) == 0) {
+				input = Fixtures.randomInput(random.nextLong());
+			} else {
+				for (int k = random.nextInt(4); k > 0; k--) {
+					int i = random.nextInt(input.length);
+					if (input[i] != 0)
+						input[i] = random.nextDouble() * Stage.signalMultiplier;
+				}
+			}
+			double expected[] = net.calc(input).clone();
+			assertArrayEquals(expected, incremental.calcIncremental(input, 0), tolerance,
+					incremental.inference + ", network " + seed + ", step " + step);
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package neuralNetwork;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import gameEngine.Snake;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import benchmark.Fixtures;
+
+public class Int8KernelTest {
+	/**
+	 * The Int8Kernel gives exact results. Only runs when the kernel is
+	 * available in this JVM (see Int8Kernel.get(), e.g. mvn -Pvector test).
+	 */
+	private Int8Kernel kernel;
+
+	@BeforeEach
+	void requireKernel() {
+		kernel = Int8Kernel.get();
+		assumeTrue(kernel != null, "no Int8Kernel in this JVM");
+	}
+
+	/**
+	 * Activations that are multiples of 1/256 make every product and partial
+	 * sum exact in float, so the order of the additions does not matter and
+	 * dot() has to equal the double loop, for every length and start of the
+	 * row (vector tails included).
+	 */
+	@Test
+	void dotIsExactOnDyadicActivations() {
+		Random random = new Random(13);
+		byte w[] = new byte[300];
+		float x[] = new float[256];
+		for (int n = 0; n <= x.length; n++) {
+			for (int row = 0; row < 40; row++) {
+				random.nextBytes(w);
+				for (int j = 0; j < n; j++)
+					x[j] = random.nextInt(257) / 256f;
+				double expected = 0;
+				for (int j = 0; j < n; j++)
+					expected += w[row + j] * (double) x[j];
+				assertEquals(expected, kernel.dot(w, row, x, n), "n = " + n + ", row = " + row);
+			}
+		}
+	}
+
+	/**
+	 * Snake.brain() thinks through calcSparse(), it has to give the same
+	 * outputs with the kernel as calc()
+	 */
+	@Test
+	void calcSparseMatchesCalc() {
+		int index[] = new int[Snake.FIRSTSTAGESIZE];
+		double value[] = new double[index.length];
+		for (int n = 0; n < 200; n++) {
+			NeuralNet net = Fixtures.randomNet(n, Inference.EXACT.withInt8Kernel(true));
+			for (int k = 0; k < 20; k++) {
+				double input[] = Fixtures.randomInput(n * 20L + k);
+				int count = 0;
+				for (int j = 0; j < input.length; j++) {
+					if (input[j] != 0) {
+						index[count] = j;
+						value[count++] = input[j];
+					}
+				}
+				double dense[] = net.calc(input).clone();
+				assertArrayEquals(dense, net.calcSparse(index, value, count), "network " + n + ", input " + k);
+			}
+		}
+	}
+}